@@ -0,0 +1,11 @@
+param([string]$day = "4")
+# CDS only archives classes loaded from jars, so package the build output once.
+# Delete out/aoc.jar after recompiling to pick up the changes.
+if (-not (Test-Path -Path "out/aoc.jar")) {
+  jar --create --file out/aoc.jar -C out/production/AdventOfCode2022 .
+}
+# The first run dumps the classes it loaded into out/aoc.jsa and later runs map them in instead
+# of loading and verifying them again. The archive is rebuilt when the jar changes.
+# Main forks the parts on a StructuredTaskScope, which is still in an incubator module that the
+# class path doesn't resolve on its own. Its classes end up in the archive like the rest.
+java --add-modules jdk.incubator.concurrent -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=out/aoc.jsa -cp out/aoc.jar aoc.Main $day
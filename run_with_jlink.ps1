@@ -1,6 +1,7 @@
+# Main needs jdk.incubator.concurrent, delete customjar if it was linked without it.
 if (Test-Path -Path "customjar") {
     "customjar exists!"
 } else {
-  jlink --output customjar --add-modules java.base
+  jlink --output customjar --add-modules java.base,jdk.incubator.concurrent
 }
-.\customjar\bin\java.exe -cp out/production/AdventOfCode2022 aoc.Main 4
+.\customjar\bin\java.exe --add-modules jdk.incubator.concurrent -cp out/production/AdventOfCode2022 aoc.Main 4
@@ -0,0 +1,27 @@
+package aoc;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How the days that split their input across the common pool decide when and how finely to split.
+ */
+public final class Chunking {
+
+    /**
+     * Inputs smaller than this, in bytes or cells, are done on one thread, below it splitting the
+     * work costs more than it saves.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private Chunking() {
+    }
+
+    /**
+     * How big a piece of a mapped file each task gets: about four pieces per thread of the common
+     * pool so uneven pieces even out, but at least 1MB and at most 1GB so a piece can be mapped
+     * on its own.
+     */
+    public static long chunkSize(long size) {
+        return Math.min(1L << 30, Math.max(1L << 20, size / (ForkJoinPool.getCommonPoolParallelism() * 4L)));
+    }
+}
@@ -1,6 +1,17 @@
 package aoc;
 
-import java.util.Arrays;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * <a href="https://adventofcode.com/2022/day/1>Day 1: Calorie Counting</a>
@@ -17,27 +28,297 @@ public class Day1 implements Solution {
         return String.valueOf(part2Impl(input));
     }
 
-    private static int part1Impl(String s) {
-        var elves = s.split("\n\n");
-        return Arrays.stream(elves)
-            .mapToInt((var elf) -> elf.lines()
-                .mapToInt(Integer::parseInt)
-                .sum()
-            )
-            .max()
-            .orElseThrow();
-    }
-
-    private static int part2Impl(String s) {
-        final var elves = s.split("\n\n");
-        return Arrays.stream(elves)
-            .mapToInt((var elf) -> elf.lines()
-                .mapToInt(Integer::parseInt)
-                .sum()
-            )
-            .sorted()
-            .skip(elves.length-3)
-            .sum();
+    /**
+     * The k largest totals seen so far, kept in a min-heap so the smallest one is the one that
+     * gets replaced.
+     */
+    static final class TopK {
+
+        private final long[] heap;
+        private int size = 0;
+
+        TopK(int k) {
+            heap = new long[k];
+        }
+
+        void offer(long total) {
+            if (size < heap.length) {
+                heap[size] = total;
+                siftUp(size);
+                size++;
+            } else if (size > 0 && total > heap[0]) {
+                heap[0] = total;
+                siftDown(0);
+            }
+        }
+
+        void offerAll(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.heap[i]);
+            }
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += heap[i];
+            }
+            return sum;
+        }
+
+        long max() {
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, heap[i]);
+            }
+            return max;
+        }
+
+        TopK copy() {
+            TopK copy = new TopK(heap.length);
+            copy.offerAll(this);
+            return copy;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (heap[parent] <= heap[i]) {
+                    return;
+                }
+                swap(parent, i);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left] < heap[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && heap[right] < heap[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(smallest, i);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+
+    /**
+     * Parses the elves straight out of the bytes, one pass and without holding on to anything but
+     * the k largest totals.
+     */
+    static TopK topK(ByteBuffer bytes, int k) {
+        TopK top = new TopK(k);
+        long elf = 0;
+        long calories = 0;
+        boolean elfHasItems = false;
+        boolean lineHasDigits = false;
+        while (bytes.hasRemaining()) {
+            byte b = bytes.get();
+            if (b >= '0' && b <= '9') {
+                calories = calories * 10 + (b - '0');
+                lineHasDigits = true;
+            } else if (b == '\n') {
+                if (lineHasDigits) {
+                    elf += calories;
+                    calories = 0;
+                    elfHasItems = true;
+                    lineHasDigits = false;
+                } else if (elfHasItems) {
+                    // blank line ends the elf
+                    top.offer(elf);
+                    elf = 0;
+                    elfHasItems = false;
+                }
+            }
+        }
+        if (lineHasDigits) {
+            elf += calories;
+            elfHasItems = true;
+        }
+        if (elfHasItems) {
+            top.offer(elf);
+        }
+        return top;
+    }
+
+    static long sumOfTop(String s, int k) {
+        return topK(ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII)), k).sum();
+    }
+
+    record Chunk(long start, long end) {
+
+    }
+
+    /**
+     * Cuts the file into pieces that each end just after a blank line, so no elf is split across
+     * two pieces. Every piece is kept under 1GB so it can be mapped on its own.
+     */
+    static List<Chunk> chunks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = Chunking.chunkSize(size);
+
+        List<Chunk> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : afterNextBlankLine(channel, start + chunkSize);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * The first position after a blank line that starts at or after from. The line from lands in
+     * might be partial, so it is skipped.
+     */
+    private static long afterNextBlankLine(FileChannel channel, long from) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(1 << 12);
+        long position = from;
+        boolean seenNewline = false;
+        boolean lineHasDigits = false;
+        while (channel.read(window.clear(), position) > 0) {
+            window.flip();
+            while (window.hasRemaining()) {
+                byte b = window.get();
+                position++;
+                if (b == '\n') {
+                    if (seenNewline && !lineHasDigits) {
+                        return Math.min(position, channel.size());
+                    }
+                    seenNewline = true;
+                    lineHasDigits = false;
+                } else if (b >= '0' && b <= '9') {
+                    lineHasDigits = true;
+                }
+            }
+        }
+        return channel.size();
+    }
+
+    private static TopK topK(FileChannel channel, Chunk chunk, int k) {
+        try {
+            return topK(channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start), k);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long sumOfTop(Path file, int k, boolean parallel) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Stream<Chunk> chunks = chunks(channel).stream();
+            if (parallel) {
+                chunks = chunks.parallel();
+            }
+            return chunks
+                .map(chunk -> topK(channel, chunk, k))
+                .reduce((a, b) -> {
+                    a.offerAll(b);
+                    return a;
+                })
+                .map(TopK::sum)
+                .orElse(0L);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long fileSize(Path file) {
+        return file.toFile().length();
+    }
+
+    record FileQuery(Path file, int k) {
+
+    }
+
+    /**
+     * Mapped chunks folded one after another, or on the fork join pool with the per chunk heaps
+     * merged at the end.
+     */
+    static final Variants<FileQuery, Long> SUM_OF_TOP = new Variants<FileQuery, Long>("day1.sumOfTop")
+        .register("sequential", query -> fileSize(query.file), query -> sumOfTop(query.file, query.k, false))
+        .register("parallel", query -> fileSize(query.file), query -> sumOfTop(query.file, query.k, true));
+
+    private static long part1Impl(String s) {
+        return sumOfTop(s, 1);
+    }
+
+    private static long part2Impl(String s) {
+        return sumOfTop(s, 3);
+    }
+
+    /**
+     * Usage: Day1 file [k]
+     */
+    public static void main(String[] args) {
+        Path file = Path.of(args[0]);
+        int k = args.length >= 2 ? Integer.parseInt(args[1]) : 3;
+        System.out.println(SUM_OF_TOP.run(new FileQuery(file, 1)));
+        System.out.println(SUM_OF_TOP.run(new FileQuery(file, k)));
+    }
+
+    /**
+     * Keeps the three largest totals seen so far and the total of the elf still being read.
+     */
+    static class Fold implements IncrementalFold {
+
+        private TopK top = new TopK(3);
+        private long current = 0;
+
+        @Override
+        public void accept(String line) {
+            if (line.isEmpty()) {
+                top.offer(current);
+                current = 0;
+            } else {
+                current += Integer.parseInt(line);
+            }
+        }
+
+        @Override
+        public String part1() {
+            return String.valueOf(Math.max(top.max(), current));
+        }
+
+        @Override
+        public String part2() {
+            TopK withCurrent = top.copy();
+            withCurrent.offer(current);
+            return String.valueOf(withCurrent.sum());
+        }
+
+        @Override
+        public void save(DataOutput out) throws IOException {
+            out.writeInt(top.size);
+            for (int i = 0; i < top.size; i++) {
+                out.writeLong(top.heap[i]);
+            }
+            out.writeLong(current);
+        }
+
+        @Override
+        public void load(DataInput in) throws IOException {
+            top = new TopK(3);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                top.offer(in.readLong());
+            }
+            current = in.readLong();
+        }
     }
 
 }
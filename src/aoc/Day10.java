@@ -1,21 +1,12 @@
 package aoc;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * <a href="https://adventofcode.com/2022/day/10>Day 10: Cathode-Ray Tube</a>
  */
 public class Day10 implements Solution {
 
-    private static final boolean DEBUG = false;
-
-
     @Override
     public String part1(String input) {
         return String.valueOf(part1Impl(input));
@@ -26,134 +17,92 @@ public class Day10 implements Solution {
         return String.valueOf(part2Impl(input));
     }
 
-    record AddX(int val) {
+    /**
+     * The value of X during every cycle of the program, so any cycle can be looked up without
+     * running the program again. Cycles count from 1, x[0] is the value before the first one.
+     */
+    record Timeline(int[] x) {
+
+        static Timeline compile(String s) {
+            int[] x = new int[256];
+            int cycles = 0;
+            int register = 1;
+            x[0] = register;
+            for (String line : (Iterable<String>) s.lines()::iterator) {
+                if (line.startsWith("addx")) {
+                    x = ensureCapacity(x, cycles + 3);
+                    x[++cycles] = register;
+                    x[++cycles] = register;
+                    // the add lands at the end of its second cycle
+                    register += Integer.parseInt(line.substring(5));
+                } else if (line.startsWith("noop")) {
+                    x = ensureCapacity(x, cycles + 2);
+                    x[++cycles] = register;
+                } else if (!line.isEmpty()) {
+                    throw new IllegalStateException("unrecognized instruction: " + line);
+                }
+            }
+            return new Timeline(Arrays.copyOf(x, cycles + 1));
+        }
 
-    }
+        private static int[] ensureCapacity(int[] x, int capacity) {
+            return capacity <= x.length ? x : Arrays.copyOf(x, Math.max(capacity, x.length * 2));
+        }
 
-    record Noop() {
+        int cycles() {
+            return x.length - 1;
+        }
 
-    }
+        /**
+         * @return cycle times X during it, 0 for cycles after the program has finished
+         */
+        long signalStrength(int cycle) {
+            return cycle <= cycles() ? (long) cycle * x[cycle] : 0;
+        }
 
-    private static Object parse(String line) {
-        if (line.startsWith("addx")) {
-            String [] cols = line.split(" ");
-            return new AddX(Integer.parseInt(cols[1]));
-        } else {
-            return new Noop();
+        long sumOfSignalStrengths(int... cycles) {
+            long sum = 0;
+            for (int cycle : cycles) {
+                sum += signalStrength(cycle);
+            }
+            return sum;
         }
-    }
 
-    private static int part1Impl(String s) {
-
-        int register = 1;
-        int cycle = 1;
-        int result = 0;
-
-        Iterator<Object> instructions = s.lines()
-            .map(Day10::parse)
-            .iterator();
-        while (instructions.hasNext()) {
-            switch (instructions.next()) {
-                case AddX(int val):
-                    if (DEBUG) {
-                        System.out.println("addx " + val);
-                    }
-
-                    if (DEBUG) {
-                        System.out.println(cycle + ": " + cycle + "*" + register + "=" + (cycle * register));
-                    }
-                    if (cycle % 40 == 20 && cycle <= 220) {
-                        result += cycle * register;
-                    }
-                    cycle++;
-                    if (cycle % 40 == 20 && cycle <= 220) {
-                        result += cycle * register;
-                    }
-                    if (DEBUG) {
-                        System.out.println(cycle + ": " + cycle + "*" + register + "=" + (cycle * register));
-                    }
-                    cycle++;
-
-                    register+= val;
-
-                    break;
-                case Noop():
-                    if (DEBUG) {
-                        System.out.println("noop");
-                    }
-                    if (DEBUG) {
-                        System.out.println(cycle + ": " + cycle + "*" + register + "=" + (cycle * register));
-                    }
-                    if (cycle % 40 == 20 && cycle <= 220) {
-                        result += cycle * register;
-                    }
-                    cycle++;
-                    break;
-                default:
-                    throw new IllegalStateException();
+        /**
+         * Draws one pixel per cycle, left to right and top to bottom, lit when the 3 pixel wide
+         * sprite centered on X covers it. Pixels after the program has finished stay dark.
+         *
+         * @param framebuffer at least width * height bytes, a row after the other
+         */
+        void render(int width, int height, byte[] framebuffer) {
+            for (int pixel = 0; pixel < width * height; pixel++) {
+                int cycle = pixel + 1;
+                int column = pixel % width;
+                boolean lit = cycle <= cycles() && x[cycle] - 1 <= column && column <= x[cycle] + 1;
+                framebuffer[pixel] = (byte) (lit ? '#' : '.');
             }
         }
+    }
 
-        return result;
+    private static final int CRT_WIDTH = 40;
+    private static final int CRT_HEIGHT = 6;
+
+    private static long part1Impl(String s) {
+        return Timeline.compile(s).sumOfSignalStrengths(20, 60, 100, 140, 180, 220);
     }
 
     private static String part2Impl(String s) {
-        int register = 1;
-        int cycle = 0;
+        byte[] framebuffer = new byte[CRT_WIDTH * CRT_HEIGHT];
+        Timeline.compile(s).render(CRT_WIDTH, CRT_HEIGHT, framebuffer);
+
         StringBuilder result = new StringBuilder();
         result.append("\n");
-        Iterator<Object> instructions = s.lines()
-            .map(Day10::parse)
-            .iterator();
-        while (instructions.hasNext()) {
-            switch (instructions.next()) {
-                case AddX(int val):
-                    if (DEBUG) {
-                        System.out.println("addx " + val);
-                    }
-
-                    if (register-1 <= (cycle % 40) && (cycle % 40) <= register + 1) {
-                        result.append("#");
-                    } else {
-                        result.append(".");
-                    }
-                    if (cycle % 40 == 39) {
-                        result.append("\n");
-                    }
-                    cycle++;
-                    if (register-1 <= (cycle % 40) && (cycle % 40) <= register + 1) {
-                        result.append("#");
-                    } else {
-                        result.append(".");
-                    }
-                    if (cycle % 40 == 39) {
-                        result.append("\n");
-                    }
-                    cycle++;
-
-                    register+= val;
-
-                    break;
-                case Noop():
-                    if (DEBUG) {
-                        System.out.println("noop");
-                    }
-
-                    if (register-1 <= (cycle % 40) && (cycle % 40) <= register + 1) {
-                        result.append("#");
-                    } else {
-                        result.append(".");
-                    }
-                    if (cycle % 40 == 39) {
-                        result.append("\n");
-                    }
-                    cycle++;
-                    break;
-                default:
-                    throw new IllegalStateException();
+        for (int row = 0; row < CRT_HEIGHT; row++) {
+            for (int column = 0; column < CRT_WIDTH; column++) {
+                result.append((char) framebuffer[row * CRT_WIDTH + column]);
             }
+            result.append("\n");
         }
-
         return result.toString(); // FECZELHE
     }
 
@@ -191,7 +191,7 @@ Monkey 0:
         }
     }
 
-    private static long part2Impl(String s) {
+    private static long roundByRound(String s, int rounds) {
         List<Monkey> monkeys = parse(s);
         int modulo = monkeys.stream()
             .mapToInt(Monkey::divisibleTest)
@@ -200,7 +200,7 @@ Monkey 0:
         long[] monkeyBusiness = new long[monkeys.size()];
         printMonkeys(monkeys);
 
-        for (int round = 1; round <= 10000; round++) {
+        for (int round = 1; round <= rounds; round++) {
 
             // calculate the new monkey levels
             // figure out the destination
@@ -254,6 +254,167 @@ Monkey 0:
         return monkeyBusiness[monkeyBusiness.length-1] * monkeyBusiness[monkeyBusiness.length-2];
     }
 
+    /**
+     * Keeping worry levels mod the product of the divisibility tests doesn't change where an item
+     * is thrown, and items never affect each other. So each item can be followed on its own as
+     * (monkey holding it at the start of a round, worry mod M), which can only take monkeys * M
+     * values and sooner or later comes back to one it had. Brent's cycle detection finds where the
+     * cycle starts and how long it is in constant memory, then the inspections of whole cycles are
+     * multiplied out instead of simulated. Items are followed in parallel.
+     */
+    private static long perItem(String s, int rounds) {
+        List<Monkey> monkeys = parse(s);
+        long modulo = monkeys.stream()
+            .mapToLong(Monkey::divisibleTest)
+            .reduce(1, (a,b) -> a*b);
+
+        List<Long> items = new ArrayList<>();
+        for (Monkey monkey : monkeys) {
+            for (long worryLevel : monkey.worryLevels) {
+                items.add(monkey.id * modulo + worryLevel % modulo);
+            }
+        }
+
+        long[] monkeyBusiness = items.parallelStream()
+            .map(item -> inspections(monkeys, modulo, item, rounds))
+            .reduce(new long[monkeys.size()], (a, b) -> {
+                long[] sum = new long[a.length];
+                for (int i = 0; i < a.length; i++) {
+                    sum[i] = a[i] + b[i];
+                }
+                return sum;
+            });
+
+        Arrays.sort(monkeyBusiness);
+
+        return monkeyBusiness[monkeyBusiness.length-1] * monkeyBusiness[monkeyBusiness.length-2];
+    }
+
+    /**
+     * @return how many times each monkey inspects the item over the rounds
+     */
+    private static long[] inspections(List<Monkey> monkeys, long modulo, long item, int rounds) {
+        long[] inspections = new long[monkeys.size()];
+
+        // Brent: the cycle length is the first power of two window the hare meets the tortoise in
+        long tortoise = item;
+        long hare = nextRound(monkeys, modulo, item, null);
+        int power = 1;
+        int cycleLength = 1;
+        int steps = 1;
+        while (tortoise != hare) {
+            if (steps >= rounds) {
+                return simulateRounds(monkeys, modulo, item, rounds, inspections);
+            }
+            if (power == cycleLength) {
+                tortoise = hare;
+                power *= 2;
+                cycleLength = 0;
+            }
+            hare = nextRound(monkeys, modulo, hare, null);
+            cycleLength++;
+            steps++;
+        }
+
+        // then a hare cycleLength rounds ahead meets the tortoise where the cycle starts
+        tortoise = item;
+        hare = item;
+        for (int i = 0; i < cycleLength; i++) {
+            hare = nextRound(monkeys, modulo, hare, null);
+        }
+        int cycleStart = 0;
+        while (tortoise != hare) {
+            tortoise = nextRound(monkeys, modulo, tortoise, null);
+            hare = nextRound(monkeys, modulo, hare, null);
+            cycleStart++;
+        }
+
+        if ((long) cycleStart + cycleLength >= rounds) {
+            return simulateRounds(monkeys, modulo, item, rounds, inspections);
+        }
+
+        long state = simulate(monkeys, modulo, item, cycleStart, inspections);
+        long[] perCycle = new long[monkeys.size()];
+        simulate(monkeys, modulo, state, cycleLength, perCycle);
+        long cycles = (rounds - cycleStart) / cycleLength;
+        for (int i = 0; i < inspections.length; i++) {
+            inspections[i] += cycles * perCycle[i];
+        }
+        simulate(monkeys, modulo, state, (rounds - cycleStart) % cycleLength, inspections);
+        return inspections;
+    }
+
+    private static long[] simulateRounds(List<Monkey> monkeys, long modulo, long item, int rounds, long[] inspections) {
+        simulate(monkeys, modulo, item, rounds, inspections);
+        return inspections;
+    }
+
+    private static long simulate(List<Monkey> monkeys, long modulo, long item, int rounds, long[] inspections) {
+        for (int round = 0; round < rounds; round++) {
+            item = nextRound(monkeys, modulo, item, inspections);
+        }
+        return item;
+    }
+
+    /**
+     * Follows the item through one round. Monkeys take their turns in order, so an item thrown to
+     * a later monkey is inspected again in the same round.
+     *
+     * @param item monkey * modulo + worry
+     * @param inspections counted into if not null
+     */
+    private static long nextRound(List<Monkey> monkeys, long modulo, long item, long[] inspections) {
+        int monkeyId = (int) (item / modulo);
+        long worryLevel = item % modulo;
+        while (true) {
+            Monkey monkey = monkeys.get(monkeyId);
+            if (inspections != null) {
+                inspections[monkeyId]++;
+            }
+
+            final long leftOperand = switch (monkey.leftOperand) {
+                case OldOperand() -> worryLevel;
+                case ConstantOperand(int val) -> val;
+                default -> throw new IllegalStateException();
+            };
+            final long rightOperand = switch (monkey.rightOperand) {
+                case OldOperand() -> worryLevel;
+                case ConstantOperand(int val) -> val;
+                default -> throw new IllegalStateException();
+            };
+            worryLevel = switch (monkey.operator) {
+                case ADD -> (leftOperand + rightOperand) % modulo;
+                case MULT -> (leftOperand * rightOperand) % modulo;
+            };
+
+            int target = worryLevel % monkey.divisibleTest == 0 ? monkey.trueMonkey : monkey.falseMonkey;
+            if (target <= monkeyId) {
+                return target * modulo + worryLevel;
+            }
+            monkeyId = target;
+        }
+    }
+
+    record RoundsQuery(String input, int rounds, long items) {
+
+        static RoundsQuery of(String input, int rounds) {
+            return new RoundsQuery(input, rounds,
+                parse(input).stream().mapToLong(monkey -> monkey.worryLevels.size()).sum());
+        }
+    }
+
+    /**
+     * Round by round pays for every item in every round, per item only until each item's state
+     * repeats, which is at most the number of rounds.
+     */
+    static final Variants<RoundsQuery, Long> PART2 = new Variants<RoundsQuery, Long>("day11.part2")
+        .register("perItem", query -> query.items * query.rounds, query -> perItem(query.input, query.rounds))
+        .register("roundByRound", query -> query.items * query.rounds, query -> roundByRound(query.input, query.rounds));
+
+    private static long part2Impl(String s) {
+        return PART2.run(RoundsQuery.of(s, 10000));
+    }
+
     private static long usingBigInt(String s) {
         List<Monkey> monkeys = parse(s);
         List<List<BigInteger>> monkeysWorryLevels = new ArrayList<>(monkeys.size());
@@ -16,9 +16,6 @@ import java.util.stream.Collectors;
  */
 public class Day14 implements Solution {
 
-    private static final boolean DEBUG = false;
-
-
     @Override
     public String part1(String input) {
         return String.valueOf(part1Impl(input));
@@ -94,7 +91,7 @@ public class Day14 implements Solution {
     }
 
     private static void printMap(Map<Coord,Character> map) {
-        if (!DEBUG) {
+        if (!Trace.ENABLED) {
             return;
         }
         int minR = 0;
@@ -111,23 +108,13 @@ public class Day14 implements Solution {
             .max()
             .orElseThrow();
 
-        System.out.println();
-        for (int r = minR; r <= maxR; r++) {
-            for (int c = minC; c <= maxC; c++) {
-                Coord coord = new Coord(r,c);
-                Character ch = map.get(coord);
-                if (ch == null) {
-                    if (r == 0 && c == 500) {
-                        System.out.print("+");
-                    } else {
-                        System.out.print(".");
-                    }
-                } else {
-                    System.out.print(ch);
-                }
+        Trace.frame("", maxR - minR + 1, maxC - minC + 1, (r, c) -> {
+            Character ch = map.get(new Coord(minR + r, minC + c));
+            if (ch == null) {
+                return minR + r == 0 && minC + c == 500 ? '+' : '.';
             }
-            System.out.println();
-        }
+            return ch;
+        });
     }
 
     private static long part1Impl(String s) {
@@ -19,7 +19,7 @@ import java.util.stream.Stream;
  */
 public class Day15 {
 
-    private static boolean DEBUG = false;
+    private static final boolean DEBUG = Trace.ENABLED;
 
 
     record Path(Coord coord, int cost) {
@@ -34,6 +34,21 @@ public class Day15 {
 
     }
 
+    record RowQuery(String input, int y, long scanRowCells, long floodFillCells) {
+
+        static RowQuery of(String input, int y) {
+            List<SensorReading> sensorReadings = parseInput(input);
+            return new RowQuery(input, y, scanRowFeature(sensorReadings), floodFillFeature(sensorReadings));
+        }
+    }
+
+    /**
+     * part1Slow wins on tiny inputs, part1 once the sensor ranges get big
+     */
+    static final Variants<RowQuery, Long> PART1 = new Variants<RowQuery, Long>("day15.part1")
+        .register("scanRow", RowQuery::scanRowCells, query -> part1(query.input, query.y))
+        .register("floodFill", RowQuery::floodFillCells, query -> part1Slow(query.input, query.y));
+
     private static int parseVal(String assignmentStr) {
         String[] cols = assignmentStr.split("=");
         String valueStr = cols[1];
@@ -132,7 +147,7 @@ public class Day15 {
                 .forEach(coord -> map.put(coord, '#'));
             i++;
             if (DEBUG) {
-                System.out.println("Completed " + i + " out of " + sensorReadings.size());
+                Trace.note("Completed " + i + " out of " + sensorReadings.size());
             }
         }
 
@@ -142,6 +157,29 @@ public class Day15 {
             .count();
     }
 
+    /**
+     * Cells the BFS visits: a diamond of radius r has 2r^2 + 2r + 1 cells.
+     */
+    private static long floodFillFeature(List<SensorReading> sensorReadings) {
+        return sensorReadings.stream()
+            .mapToLong(sensorReading -> calcManDist(sensorReading.sensor, sensorReading.beacon))
+            .map(r -> 2 * r * r + 2 * r + 1)
+            .sum();
+    }
+
+    /**
+     * Every cell on the row gets checked against every sensor.
+     */
+    private static long scanRowFeature(List<SensorReading> sensorReadings) {
+        long minX = sensorReadings.stream().mapToInt(sensorReading -> sensorReading.sensor.x).min().orElseThrow();
+        long maxX = sensorReadings.stream().mapToInt(sensorReading -> sensorReading.sensor.x).max().orElseThrow();
+        long maxManDist = sensorReadings.stream()
+            .mapToInt(sensorReading -> calcManDist(sensorReading.sensor, sensorReading.beacon))
+            .max()
+            .orElseThrow();
+        return sensorReadings.size() * (maxX - minX + 2 * maxManDist + 1);
+    }
+
     private static boolean insideSensorRange(List<SensorReading> sensorReadings, Coord xy) {
         for (SensorReading sensorReading : sensorReadings) {
             int beaconManDist = calcManDist(sensorReading.sensor, sensorReading.beacon);
@@ -173,8 +211,8 @@ public class Day15 {
             .orElseThrow();
 
         if (DEBUG) {
-            System.out.println(maxX - minX + 2 * maxManDist);
-            System.out.println(Math.log(sensorReadings.size() * (maxX - minX + 2 * maxManDist)) / Math.log(2));
+            Trace.note("width=" + (maxX - minX + 2 * maxManDist)
+                + " log2(sensors*width)=" + Math.log(sensorReadings.size() * (maxX - minX + 2 * maxManDist)) / Math.log(2));
         }
 
         Set<Coord> notAvailable = new HashSet<>();
@@ -189,37 +227,33 @@ public class Day15 {
          * 11 .###S#############.###########.
          */
 
-        if (DEBUG) {
-            System.out.println(minX - maxManDist);
-            System.out.println(maxX+maxManDist);
-            for (int x = minX - maxManDist; x <= maxX+maxManDist; x++) {
-                System.out.print(Math.abs(x % 10));
-            }
-            System.out.println();
-        }
+        final int startX = minX - maxManDist;
+        final int endX = maxX + maxManDist;
+        final char[] row = DEBUG ? new char[endX - startX + 1] : null;
 
         int count = 0;
-        for (int x = minX - maxManDist; x <= maxX+maxManDist; x++) {
+        for (int x = startX; x <= endX; x++) {
             Coord xy = new Coord(x,y);
             if (notAvailable.contains(xy)) {
                 if (DEBUG) {
-                    System.out.print('.');
+                    row[x - startX] = '.';
                 }
                 continue;
             }
             if (insideSensorRange(sensorReadings, xy)) {
                 count++;
                 if (DEBUG) {
-                    System.out.print('#');
+                    row[x - startX] = '#';
                 }
             } else {
                 if (DEBUG) {
-                    System.out.print('.');
+                    row[x - startX] = '.';
                 }
             }
         }
         if (DEBUG) {
-            System.out.println();
+            Trace.frame(startX + " to " + endX + " at y=" + y, 2, row.length,
+                (r, c) -> r == 0 ? (char) ('0' + Math.abs((startX + c) % 10)) : row[c]);
         }
 
         return count;
@@ -292,17 +326,18 @@ public class Day15 {
 
         System.out.println(Math.log(4000000L*4000000L)/Math.log(2));
 
-        DEBUG = true;
-        part1(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),9);
-        part1(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),10);
-        part1(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),11);
-        DEBUG = false;
+        if (Trace.ENABLED) {
+            part1(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),9);
+            part1(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),10);
+            part1(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),11);
+            Trace.renderToStdout();
+        }
         System.out.println("Expected: "
             + Files.readString(java.nio.file.Path.of("input/day_15_sample_part1_expected.txt")));
         System.out.println("Actual:   "
-            + part1(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),10));
+            + PART1.run(RowQuery.of(Files.readString(java.nio.file.Path.of("input/day_15_sample.txt")),10)));
         System.out.println("Solution: "
-            + part1(Files.readString(java.nio.file.Path.of("input/day_15.txt")),2000000));
+            + PART1.run(RowQuery.of(Files.readString(java.nio.file.Path.of("input/day_15.txt")),2000000)));
 
         System.out.println("Expected: "
             + Files.readString(java.nio.file.Path.of("input/day_15_sample_part2_expected.txt")));
@@ -22,8 +22,6 @@ import java.util.stream.Stream;
  */
 public class Day16 {
 
-    private static boolean DEBUG = false;
-
     record Valve(String id, int rate, List<String> tunnels) {
 
     }
@@ -446,8 +444,6 @@ public class Day16 {
         System.out.println("bit=" + (Math.log((double)realFactorial)/Math.log(2)));
         // 40 bits is too much to brute force
 
-        DEBUG = true;
-        DEBUG = false;
         System.out.println("Expected: "
             + Files.readString(java.nio.file.Path.of("input/day_16_sample_part1_expected.txt")));
         System.out.println("Actual:   "
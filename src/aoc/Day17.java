@@ -22,7 +22,7 @@ import java.util.stream.Collectors;
  */
 public class Day17 {
 
-    private static boolean DEBUG = false;
+    private static final boolean DEBUG = Trace.ENABLED;
 
     private interface Collidable {
 
@@ -316,31 +316,31 @@ public class Day17 {
 
     }
 
-    private static void printState(Set<Coord> rocks) {
+    private static void printState(String label, Set<Coord> rocks) {
         int minX = Math.min(-1, rocks.stream().mapToInt(Coord::x).min().orElseThrow());
         int maxX = Math.max(7, rocks.stream().mapToInt(Coord::x).max().orElseThrow());
         int minY = Math.min(-1, rocks.stream().mapToInt(Coord::y).min().orElseThrow());
         int maxY = rocks.stream().mapToInt(Coord::y).max().orElseThrow();
 
-        for (int y = maxY; y >= minY; y--) {
-            for (int x = minX; x <= maxX; x++) {
-                if (rocks.contains(new Coord(x,y))) {
-                    System.out.print('#'); // ROCK
-                } else if (y == -1) {
-                    System.out.print('-'); // FLOOR
-                } else if (x == -1) {
-                    System.out.print('|'); // WALL
-                } else if (x == 7) {
-                    System.out.print('|'); // WALL
-                } else {
-                    System.out.print('.'); // NOTHING
-                }
+        Trace.frame(label, maxY - minY + 1, maxX - minX + 1, (r, c) -> {
+            int y = maxY - r;
+            int x = minX + c;
+            if (rocks.contains(new Coord(x,y))) {
+                return '#'; // ROCK
+            } else if (y == -1) {
+                return '-'; // FLOOR
+            } else if (x == -1) {
+                return '|'; // WALL
+            } else if (x == 7) {
+                return '|'; // WALL
+            } else {
+                return '.'; // NOTHING
             }
-            System.out.println();
-        }
+        });
     }
 
     private static void printState(
+        String label,
         Map<Coord, Integer> rocks,
         Map<Integer, SortedSet<Long>> yToRockNum
     ) {
@@ -349,29 +349,38 @@ public class Day17 {
         int minY = Math.min(-1, rocks.keySet().stream().mapToInt(Coord::y).min().orElseThrow());
         int maxY = rocks.keySet().stream().mapToInt(Coord::y).max().orElseThrow();
 
+        // the row number and rock numbers annotate the grid, so lay each row out as text first
+        List<String> lines = new ArrayList<>();
         for (int y = maxY; y >= minY; y--) {
-            System.out.print((y+1) + " ");
+            StringBuilder line = new StringBuilder();
+            line.append(y+1).append(' ');
             for (int x = minX; x <= maxX; x++) {
                 Coord coord = new Coord(x,y);
                 if (rocks.containsKey(coord)) {
-                    System.out.print(rocks.get(coord)); // ROCK
+                    line.append(rocks.get(coord)); // ROCK
                 } else if (y == -1) {
-                    System.out.print('-'); // FLOOR
+                    line.append('-'); // FLOOR
                 } else if (x == -1) {
-                    System.out.print('|'); // WALL
+                    line.append('|'); // WALL
                 } else if (x == 7) {
-                    System.out.print('|'); // WALL
+                    line.append('|'); // WALL
                 } else {
-                    System.out.print('.'); // NOTHING
+                    line.append('.'); // NOTHING
                 }
             }
             SortedSet<Long> rockNums = yToRockNum.get(y);
             if (rockNums != null) {
-                System.out.print(" ");
-                System.out.print(String.join(", ", rockNums.stream().map(String::valueOf).collect(Collectors.toList())));
+                line.append(' ');
+                line.append(String.join(", ", rockNums.stream().map(String::valueOf).collect(Collectors.toList())));
             }
-            System.out.println();
+            lines.add(line.toString());
         }
+
+        int width = lines.stream().mapToInt(String::length).max().orElse(0);
+        Trace.frame(label, lines.size(), width, (r, c) -> {
+            String line = lines.get(r);
+            return c < line.length() ? line.charAt(c) : ' ';
+        });
     }
 
     private static long part1(String input) {
@@ -403,8 +412,7 @@ public class Day17 {
 
             if (DEBUG) {
                 if (rock >= 1 && rock <= 11) {
-                    System.out.println("========= "+rock+" =========");
-                    printState(rocks);
+                    printState("========= "+rock+" =========", rocks);
                 }
             }
 
@@ -454,8 +462,7 @@ public class Day17 {
         }
 
         if (DEBUG) {
-            System.out.println("========= 2022 =========");
-            printState(rocks);
+            printState("========= 2022 =========", rocks);
         }
 
         return highestRock + 1;
@@ -500,7 +507,7 @@ public class Day17 {
             Comparator.comparingLong((Map.Entry<String, Long> a) -> a.getValue())
                        .thenComparing(Map.Entry::getKey));
         for (var entry : toSort) {
-            System.out.println(entry.getKey() + " => " + entry.getValue());
+            Trace.note(entry.getKey() + " => " + entry.getValue());
         }
     }
 
@@ -592,9 +599,7 @@ public class Day17 {
 
         if (DEBUG) {
 
-            System.out.println("==========================");
-            printState(rockMap, yToRockNum);
-            System.out.println("==========================");
+            printState("==========================", rockMap, yToRockNum);
             countRockLines(rockMap);
         }
 
@@ -630,11 +635,9 @@ public class Day17 {
 
     public static void main(String[] args) throws IOException {
 
-        DEBUG = true;
         String sampleInput = Files.readString(java.nio.file.Path.of("input/day_17_sample.txt"));
         String realInput = Files.readString(java.nio.file.Path.of("input/day_17.txt"));
         //part1(sampleInput);
-        DEBUG = false;
         System.out.println("Expected: "
             + Files.readString(java.nio.file.Path.of("input/day_17_sample_part1_expected.txt")));
         System.out.println("Actual:   "
@@ -642,12 +645,15 @@ public class Day17 {
         System.out.println("Solution: "
             + part1(realInput));
 
-        DEBUG = true;
-        System.out.println("========= sample ==========");
-        part2(sampleInput, 200);
-        System.out.println("========= real ==========");
-        part2(realInput, 10000);
-        DEBUG = false;
+        // run with -Daoc.trace=true -Daoc.trace.frameBytes=1000000 to see the states used to find the loops below
+        if (Trace.ENABLED) {
+            System.out.println("========= sample ==========");
+            part2(sampleInput, 200);
+            Trace.renderToStdout();
+            System.out.println("========= real ==========");
+            part2(realInput, 10000);
+            Trace.renderToStdout();
+        }
 
 
         /* sample
@@ -21,7 +21,7 @@ import java.util.stream.IntStream;
  */
 public class Day19 {
 
-    private static boolean DEBUG = false;
+    private static final boolean DEBUG = Trace.ENABLED;
 
     record Blueprint(
         int id,
@@ -513,7 +513,7 @@ public class Day19 {
     private static long part1(String input) {
         List<Blueprint> blueprints = parseInput(input);
         if(DEBUG) {
-            System.out.println(blueprints);
+            Trace.note(String.valueOf(blueprints));
         }
 
         int [] percentMap = new int[]{
@@ -600,10 +600,8 @@ public class Day19 {
         String sampleInput = Files.readString(java.nio.file.Path.of("input/day_"+day+"_sample.txt"));
         String realInput = Files.readString(java.nio.file.Path.of("input/day_"+day+".txt"));
 
-        DEBUG = true;
         //part1(sampleInput);
 
-        DEBUG = false;
 //        System.out.println("Expected: "
 //            + Files.readString(java.nio.file.Path.of("input/day_"+day+"_sample_part1_expected.txt")));
 //        System.out.println("Actual:   "
@@ -1,5 +1,13 @@
 package aoc;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
 /**
  * <a href="https://adventofcode.com/2022/day/2>Day 2: Rock Paper Scissors</a>
  */
@@ -53,12 +61,6 @@ public class Day2 implements Solution {
         };
     }
 
-    private static int part1Impl(String s) {
-        return s.lines()
-            .map(round -> round.split(" "))
-            .mapToInt(Day2::scorePart1)
-            .sum();
-    }
 
     private static int scorePart2(String[] round) {
         // A for Rock, B for Paper, and C for Scissors.
@@ -89,11 +91,140 @@ public class Day2 implements Solution {
         };
     }
 
-    private static int part2Impl(String s) {
-        return s.lines()
-            .map(round -> round.split(" "))
-            .mapToInt(Day2::scorePart2)
-            .sum();
+    /**
+     * There are only nine different rounds, so score each once up front.
+     * Indexed by (opponent - 'A') * 3 + (you - 'X').
+     */
+    private static final int[] PART1_SCORES = scoreTable(Day2::scorePart1);
+    private static final int[] PART2_SCORES = scoreTable(Day2::scorePart2);
+
+    private static int[] scoreTable(ToIntFunction<String[]> scorer) {
+        int[] table = new int[9];
+        for (char opponent = 'A'; opponent <= 'C'; opponent++) {
+            for (char you = 'X'; you <= 'Z'; you++) {
+                table[roundIndex(opponent, you)] = scorer.applyAsInt(
+                    new String[]{String.valueOf(opponent), String.valueOf(you)});
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Where a round goes in PART1_SCORES and PART2_SCORES.
+     */
+    private static int roundIndex(int opponent, int you) {
+        if (opponent < 'A' || opponent > 'C' || you < 'X' || you > 'Z') {
+            throw new IllegalStateException("not a round: " + (char) opponent + " " + (char) you);
+        }
+        return (opponent - 'A') * 3 + (you - 'X');
+    }
+
+    /**
+     * How many times each of the nine rounds shows up between from and to.
+     */
+    private static long[] histogram(byte[] bytes, int from, int to) {
+        long[] counts = new long[9];
+        int opponent = -1;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '\n') {
+                opponent = -1;
+            } else if (b >= 'A' && b <= 'C') {
+                opponent = b;
+            } else if (b >= 'X' && b <= 'Z') {
+                if (opponent < 0) {
+                    throw new IllegalStateException("round without an opponent: " + (char) b);
+                }
+                counts[roundIndex(opponent, b)]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Scans chunks in parallel, each chunk boundary pushed forward to just after a newline so no
+     * round gets split.
+     */
+    static long[] histogram(byte[] bytes) {
+        if (bytes.length < Chunking.PARALLEL_THRESHOLD) {
+            return histogram(bytes, 0, bytes.length);
+        }
+        int numChunks = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int[] boundaries = new int[numChunks + 1];
+        for (int i = 1; i < numChunks; i++) {
+            int boundary = Math.max(boundaries[i - 1], (int) ((long) bytes.length * i / numChunks));
+            while (boundary < bytes.length && bytes[boundary - 1] != '\n') {
+                boundary++;
+            }
+            boundaries[i] = boundary;
+        }
+        boundaries[numChunks] = bytes.length;
+
+        return IntStream.range(0, numChunks)
+            .parallel()
+            .mapToObj(i -> histogram(bytes, boundaries[i], boundaries[i + 1]))
+            .reduce(new long[9], (a, b) -> {
+                long[] sum = new long[9];
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] = a[i] + b[i];
+                }
+                return sum;
+            });
+    }
+
+    private static long score(long[] histogram, int[] scores) {
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            total += histogram[i] * scores[i];
+        }
+        return total;
+    }
+
+    private static long part1Impl(String s) {
+        return score(histogram(s.getBytes(StandardCharsets.US_ASCII)), PART1_SCORES);
+    }
+
+    private static long part2Impl(String s) {
+        return score(histogram(s.getBytes(StandardCharsets.US_ASCII)), PART2_SCORES);
+    }
+
+    static class Fold implements IncrementalFold {
+
+        private long part1Total = 0;
+        private long part2Total = 0;
+
+        @Override
+        public void accept(String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            // A X
+            int round = roundIndex(line.charAt(0), line.charAt(line.length() - 1));
+            part1Total += PART1_SCORES[round];
+            part2Total += PART2_SCORES[round];
+        }
+
+        @Override
+        public String part1() {
+            return String.valueOf(part1Total);
+        }
+
+        @Override
+        public String part2() {
+            return String.valueOf(part2Total);
+        }
+
+        @Override
+        public void save(DataOutput out) throws IOException {
+            out.writeLong(part1Total);
+            out.writeLong(part2Total);
+        }
+
+        @Override
+        public void load(DataInput in) throws IOException {
+            part1Total = in.readLong();
+            part2Total = in.readLong();
+        }
     }
 
 }
@@ -16,7 +16,7 @@ import java.util.stream.Collectors;
  */
 public class Day23 {
 
-    private static boolean DEBUG = false;
+    private static final boolean DEBUG = Trace.ENABLED;
 
     record Coord (int r, int c) {
 
@@ -94,8 +94,8 @@ public class Day23 {
         };
     }
 
-    static void printMap(Map<Coord, Character> map) {
-        if(!DEBUG) {
+    static void printMap(String label, Map<Coord, Character> map) {
+        if(!Trace.ENABLED) {
             return;
         }
         int minR = map.keySet().stream().mapToInt(Coord::r).min().orElseThrow();
@@ -103,17 +103,8 @@ public class Day23 {
         int minC = map.keySet().stream().mapToInt(Coord::c).min().orElseThrow();
         int maxC = map.keySet().stream().mapToInt(Coord::c).max().orElseThrow();
 
-        for (int r = minR; r <= maxR; r++) {
-            for (int c = minC; c <= maxC; c++) {
-                Character ch = map.get(new Coord(r,c));
-                if (ch == null) {
-                    System.out.print('.');
-                } else {
-                    System.out.print(ch);
-                }
-            }
-            System.out.println();
-        }
+        Trace.frame(label, maxR - minR + 1, maxC - minC + 1,
+            (r, c) -> map.getOrDefault(new Coord(minR + r, minC + c), '.'));
     }
 
     /**
@@ -141,7 +132,7 @@ public class Day23 {
      */
     private static long part1(String input) {
         Map<Coord, Character> map = parseInput(input);
-        printMap(map);
+        printMap("== Initial State ==", map);
         /*
          * Finally, at the end of the round, the first direction the Elves considered is moved to the end
          * of the list of directions. For example, during the second round, the Elves would try proposing
@@ -200,10 +191,9 @@ public class Day23 {
                 nextMap.put(moveOneStep(source, direction), '#');
             });
             map = nextMap;
-            if (DEBUG) {
-                System.out.println("======" + (i+1) + "=============");
+            if (Trace.ENABLED) {
+                printMap("======" + (i+1) + "=============", map);
             }
-            printMap(map);
         }
 
         /*
@@ -217,7 +207,7 @@ public class Day23 {
 
         //     | ----------- size of rectangle ----|   number of elves
         if (DEBUG) {
-            System.out.println(
+            Trace.note(
                 "maxR=" + maxR
                 + " minR=" + minR
                 + " maxR=" + maxC
@@ -304,11 +294,11 @@ public class Day23 {
         String sampleInput = Files.readString(java.nio.file.Path.of("input/day_"+day+"_sample.txt"));
         String realInput = Files.readString(java.nio.file.Path.of("input/day_"+day+".txt"));
 
-        DEBUG = true;
-
-        part1(sampleInput);
+        if (Trace.ENABLED) {
+            part1(sampleInput);
+            Trace.renderToStdout();
+        }
 
-        DEBUG = false;
         System.out.println("Expected: "
             + Files.readString(java.nio.file.Path.of("input/day_"+day+"_sample_part1_expected.txt")));
         System.out.println("Actual:   "
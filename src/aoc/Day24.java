@@ -19,9 +19,6 @@ import java.util.stream.Collectors;
  */
 public class Day24 {
 
-    private static boolean DEBUG = false;
-
-
     private static List<List<List<Character>>> parseInput(String input) {
         List<String> lines = input.lines().collect(Collectors.toList());
         List<List<List<Character>>> result = new ArrayList<>();
@@ -126,21 +123,18 @@ public class Day24 {
         return next;
     }
 
-    private static void printMap( List<List<List<Character>>> map) {
+    private static void printMap(String label, List<List<List<Character>>> map) {
         int R = map.size();
         int C = map.get(0).size();
-        for (int r = 0; r < R; r++) {
-            for (int c = 0; c < C; c++) {
-                List<Character> col = map.get(r).get(c);
-                if (col.size() == 1) {
-                    System.out.print(col.get(0));
-                } else {
-                    System.out.print(col.size());
-                }
-
+        Trace.frame(label, R, C, (r, c) -> {
+            List<Character> col = map.get(r).get(c);
+            if (col.size() == 1) {
+                return col.get(0);
+            } else {
+                // 10 or more blizzards don't fit in one digit
+                return col.size() < 10 ? Character.forDigit(col.size(), 10) : '*';
             }
-            System.out.println();
-        }
+        });
     }
 
 
@@ -353,27 +347,16 @@ public class Day24 {
             #.....#
             #####.#
             """;
-        List<List<List<Character>>> windTestSampleMap = parseInput(windTestSample);
-        System.out.println("========== 0 ==========");
-        printMap(windTestSampleMap);
-        windTestSampleMap = calcNextWind(windTestSampleMap);
-        System.out.println("========== 1 ==========");
-        printMap(windTestSampleMap);
-        windTestSampleMap = calcNextWind(windTestSampleMap);
-        System.out.println("========== 2 ==========");
-        printMap(windTestSampleMap);
-        windTestSampleMap = calcNextWind(windTestSampleMap);
-        System.out.println("========== 3 ==========");
-        printMap(windTestSampleMap);
-        windTestSampleMap = calcNextWind(windTestSampleMap);
-        System.out.println("========== 4 ==========");
-        printMap(windTestSampleMap);
-
-        DEBUG = true;
-
-//        part1(sampleInput);
-
-        DEBUG = false;
+        if (Trace.ENABLED) {
+            List<List<List<Character>>> windTestSampleMap = parseInput(windTestSample);
+            printMap("========== 0 ==========", windTestSampleMap);
+            for (int minute = 1; minute <= 4; minute++) {
+                windTestSampleMap = calcNextWind(windTestSampleMap);
+                printMap("========== " + minute + " ==========", windTestSampleMap);
+            }
+            Trace.renderToStdout();
+        }
+
         System.out.println("Expected: "
             + Files.readString(java.nio.file.Path.of("input/day_"+day+"_sample_part1_expected.txt")));
         System.out.println("Actual:   "
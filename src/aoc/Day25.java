@@ -1,5 +1,7 @@
 package aoc;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayDeque;
@@ -224,6 +226,38 @@ public class Day25 {
         return 0;
     }
 
+    static class Fold implements IncrementalFold {
+
+        private long sum = 0;
+
+        @Override
+        public void accept(String line) {
+            if (!line.isEmpty()) {
+                sum += snafuToInt(line);
+            }
+        }
+
+        @Override
+        public String part1() {
+            return intToSnafu(sum);
+        }
+
+        @Override
+        public String part2() {
+            return String.valueOf(Day25.part2(""));
+        }
+
+        @Override
+        public void save(DataOutput out) throws IOException {
+            out.writeLong(sum);
+        }
+
+        @Override
+        public void load(DataInput in) throws IOException {
+            sum = in.readLong();
+        }
+    }
+
     private static void check(long expectedVal, String expectedSnafu) {
         long actualVal = snafuToInt(expectedSnafu);
         String actualSnafu = intToSnafu(expectedVal);
@@ -1,8 +1,11 @@
 package aoc;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 /**
  * <a href="https://adventofcode.com/2022/day/3>Day 3: Rucksack Reorganization</a>
@@ -19,14 +22,6 @@ public class Day3 implements Solution {
         return String.valueOf(part2Impl(input));
     }
 
-    private static Set<Character> toSet(char[] chars) {
-        Set<Character> result = new HashSet<>();
-        for(char c : chars) {
-            result.add(c);
-        }
-        return result;
-    }
-
     /**
      *     Lowercase item types a through z have priorities 1 through 26.
      *     Uppercase item types A through Z have priorities 27 through 52.
@@ -39,34 +34,152 @@ public class Day3 implements Solution {
         }
     }
 
-    private static int part1Impl(String s) {
-        return s.lines()
-            .map(rucksack -> List.of(
-                rucksack.substring(0, rucksack.length()/2),
-                rucksack.substring(rucksack.length()/2)
-            ))
-            .map(compartments -> List.of(
-                toSet(compartments.get(0).toCharArray()),
-                toSet(compartments.get(1).toCharArray())
-            ))
-            .map(sets -> sets.get(0).stream().filter(sets.get(1)::contains).findFirst().orElseThrow())
-            .mapToInt(Day3::prioritize)
+    /**
+     * One bit per item type, bit priority-1 set when the item is present. Intersecting rucksacks
+     * is then just &amp;.
+     */
+    private static long itemMask(byte[] bytes, int from, int to) {
+        long mask = 0;
+        for (int i = from; i < to; i++) {
+            mask |= 1L << (prioritize((char) bytes[i]) - 1);
+        }
+        return mask;
+    }
+
+    private static int priority(long commonItems) {
+        if (commonItems == 0) {
+            throw new IllegalStateException("Expected an item in common");
+        }
+        return Long.numberOfTrailingZeros(commonItems) + 1;
+    }
+
+    /**
+     * Where each non empty line starts and ends, without its line terminator.
+     */
+    record Lines(byte[] bytes, int[] starts, int[] ends, int size) {
+
+        static Lines of(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+            int[] starts = new int[16];
+            int[] ends = new int[16];
+            int size = 0;
+            int start = 0;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i == bytes.length || bytes[i] == '\n') {
+                    int end = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+                    if (end > start) {
+                        if (size == starts.length) {
+                            starts = Arrays.copyOf(starts, size * 2);
+                            ends = Arrays.copyOf(ends, size * 2);
+                        }
+                        starts[size] = start;
+                        ends[size] = end;
+                        size++;
+                    }
+                    start = i + 1;
+                }
+            }
+            return new Lines(bytes, starts, ends, size);
+        }
+
+        long itemMask(int line) {
+            return Day3.itemMask(bytes, starts[line], ends[line]);
+        }
+
+        IntStream range(int n) {
+            IntStream range = IntStream.range(0, n);
+            return bytes.length < Chunking.PARALLEL_THRESHOLD ? range : range.parallel();
+        }
+    }
+
+    private static int scoreRucksack(byte[] bytes, int from, int to) {
+        int middle = from + (to - from) / 2;
+        return priority(itemMask(bytes, from, middle) & itemMask(bytes, middle, to));
+    }
+
+    private static long part1Impl(String s) {
+        Lines lines = Lines.of(s);
+        return lines.range(lines.size)
+            .mapToLong(i -> scoreRucksack(lines.bytes, lines.starts[i], lines.ends[i]))
             .sum();
     }
 
+    /**
+     * Sum of the priorities of the item each group of groupSize elves has in common.
+     */
+    static long sumOfBadges(String s, int groupSize) {
+        Lines lines = Lines.of(s);
+        if (lines.size % groupSize != 0) {
+            throw new IllegalStateException(lines.size + " rucksacks can't be split into groups of " + groupSize);
+        }
+        return lines.range(lines.size / groupSize)
+            .mapToLong(group -> {
+                long common = -1L;
+                for (int i = group * groupSize; i < (group + 1) * groupSize; i++) {
+                    common &= lines.itemMask(i);
+                }
+                return priority(common);
+            })
+            .sum();
+    }
+
+    private static long part2Impl(String s) {
+        return sumOfBadges(s, 3);
+    }
 
-    private static int part2Impl(String s) {
-        String[] rucksacks = s.split("\n");
-        int i = 0;
-        int result = 0;
-        while (i < rucksacks.length) {
-            Set<Character> common = toSet(rucksacks[i++].toCharArray());
-            common.retainAll(toSet(rucksacks[i++].toCharArray()));
-            common.retainAll(toSet(rucksacks[i++].toCharArray()));
+    /**
+     * Holds on to what the rucksacks of a group have in common until all three of them have arrived.
+     */
+    static class Fold implements IncrementalFold {
+
+        private static final int GROUP_SIZE = 3;
+
+        private long part1Total = 0;
+        private long part2Total = 0;
+        private long groupCommon = -1L;
+        private int groupSize = 0;
+
+        @Override
+        public void accept(String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+            part1Total += scoreRucksack(bytes, 0, bytes.length);
+            groupCommon &= itemMask(bytes, 0, bytes.length);
+            groupSize++;
+            if (groupSize == GROUP_SIZE) {
+                part2Total += priority(groupCommon);
+                groupCommon = -1L;
+                groupSize = 0;
+            }
+        }
+
+        @Override
+        public String part1() {
+            return String.valueOf(part1Total);
+        }
+
+        @Override
+        public String part2() {
+            return String.valueOf(part2Total);
+        }
+
+        @Override
+        public void save(DataOutput out) throws IOException {
+            out.writeLong(part1Total);
+            out.writeLong(part2Total);
+            out.writeLong(groupCommon);
+            out.writeInt(groupSize);
+        }
 
-            result += prioritize(common.iterator().next());
+        @Override
+        public void load(DataInput in) throws IOException {
+            part1Total = in.readLong();
+            part2Total = in.readLong();
+            groupCommon = in.readLong();
+            groupSize = in.readInt();
         }
-        return result;
     }
 
 }
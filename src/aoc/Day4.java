@@ -1,6 +1,12 @@
 package aoc;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * <a href="https://adventofcode.com/2022/day/4>Day 4: Camp Cleanup</a>
@@ -26,6 +32,20 @@ public class Day4 implements Solution {
         return String.valueOf(part2Impl(input));
     }
 
+    /**
+     * 2-4,6-8
+     */
+    private static AssignmentPair parse(String line) {
+        String[] pair = line.split(",");
+        List<String[]> tuple = List.of(pair[0].split("-"), pair[1].split("-"));
+        return new AssignmentPair(
+            Integer.parseInt(tuple.get(0)[0]),
+            Integer.parseInt(tuple.get(0)[1]),
+            Integer.parseInt(tuple.get(1)[0]),
+            Integer.parseInt(tuple.get(1)[1])
+        );
+    }
+
     private static boolean fullyContains(AssignmentPair assignmentPair) {
         return
             // first is inside second
@@ -38,20 +58,7 @@ public class Day4 implements Solution {
     }
 
     private static long part1Impl(String s) {
-        return s.lines()
-            // 2-4,6-8
-            .map(line -> line.split(","))
-            .map(pair -> List.of(pair[0].split("-"), pair[1].split("-")))
-            .map(tuple -> new AssignmentPair(
-                Integer.parseInt(tuple.get(0)[0]),
-                Integer.parseInt(tuple.get(0)[1]),
-                Integer.parseInt(tuple.get(1)[0]),
-                Integer.parseInt(tuple.get(1)[1])
-                ))
-            .filter(Day4::fullyContains)
-            //.peek(System.out::println)
-            .count()
-            ;
+        return AssignmentIndex.of(s).part1();
     }
 
     private static boolean isOverlapping(AssignmentPair assignmentPair) {
@@ -66,20 +73,159 @@ public class Day4 implements Solution {
     }
 
     private static long part2Impl(String s) {
-        return s.lines()
-            // 2-4,6-8
-            .map(line -> line.split(","))
-            .map(pair -> List.of(pair[0].split("-"), pair[1].split("-")))
-            .map(tuple -> new AssignmentPair(
-                Integer.parseInt(tuple.get(0)[0]),
-                Integer.parseInt(tuple.get(0)[1]),
-                Integer.parseInt(tuple.get(1)[0]),
-                Integer.parseInt(tuple.get(1)[1])
-            ))
-            .filter(Day4::isOverlapping)
-            //.peek(System.out::println)
-            .count()
-            ;
+        return AssignmentIndex.of(s).part2();
+    }
+
+    /**
+     * Every assignment of every pair, answering how many assignments cover a section and which
+     * pairs overlap some other pair.
+     *
+     * An assignment [start, end] covers x when start &lt;= x &lt;= end, so with the starts and the
+     * ends sorted separately the number covering x is #(starts &lt;= x) - #(ends &lt; x). Overlapping a
+     * range works the same way, which makes each query two binary searches.
+     */
+    static class AssignmentIndex {
+
+        private final List<AssignmentPair> assignmentPairs;
+        private final int[] starts;
+        private final int[] ends;
+        private final long fullyContainedCount;
+        private final long overlappingCount;
+
+        AssignmentIndex(List<AssignmentPair> assignmentPairs) {
+            this.assignmentPairs = assignmentPairs;
+            starts = new int[assignmentPairs.size() * 2];
+            ends = new int[assignmentPairs.size() * 2];
+            long fullyContained = 0;
+            long overlapping = 0;
+            int i = 0;
+            for (AssignmentPair assignmentPair : assignmentPairs) {
+                starts[i] = assignmentPair.firstStart;
+                ends[i++] = assignmentPair.firstEnd;
+                starts[i] = assignmentPair.secondStart;
+                ends[i++] = assignmentPair.secondEnd;
+                if (fullyContains(assignmentPair)) {
+                    fullyContained++;
+                }
+                if (isOverlapping(assignmentPair)) {
+                    overlapping++;
+                }
+            }
+            Arrays.sort(starts);
+            Arrays.sort(ends);
+            fullyContainedCount = fullyContained;
+            overlappingCount = overlapping;
+        }
+
+        static AssignmentIndex of(String s) {
+            return new AssignmentIndex(s.lines()
+                .filter(line -> !line.isEmpty())
+                .map(Day4::parse)
+                .collect(Collectors.toList()));
+        }
+
+        /**
+         * @return how many values in sorted are less than or equal to limit
+         */
+        private static int countAtMost(int[] sorted, int limit) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] <= limit) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        int coverCount(int section) {
+            return overlapCount(section, section);
+        }
+
+        int[] coverCounts(int[] sections) {
+            int[] result = new int[sections.length];
+            for (int i = 0; i < sections.length; i++) {
+                result[i] = coverCount(sections[i]);
+            }
+            return result;
+        }
+
+        /**
+         * @return how many assignments share at least one section with [start, end]
+         */
+        int overlapCount(int start, int end) {
+            return countAtMost(starts, end) - countAtMost(ends, start - 1);
+        }
+
+        /**
+         * @return the indexes of the pairs that share a section with an assignment of another pair
+         */
+        List<Integer> pairsOverlappingOtherPairs() {
+            List<Integer> result = new ArrayList<>();
+            for (int i = 0; i < assignmentPairs.size(); i++) {
+                AssignmentPair assignmentPair = assignmentPairs.get(i);
+                // each assignment overlaps itself, and the other one of its pair when they overlap
+                int ownPair = isOverlapping(assignmentPair) ? 2 : 1;
+                if (overlapCount(assignmentPair.firstStart, assignmentPair.firstEnd) > ownPair
+                    || overlapCount(assignmentPair.secondStart, assignmentPair.secondEnd) > ownPair) {
+                    result.add(i);
+                }
+            }
+            return result;
+        }
+
+        long part1() {
+            return fullyContainedCount;
+        }
+
+        long part2() {
+            return overlappingCount;
+        }
+    }
+
+    static class Fold implements IncrementalFold {
+
+        private long fullyContainedCount = 0;
+        private long overlappingCount = 0;
+
+        @Override
+        public void accept(String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            AssignmentPair assignmentPair = parse(line);
+            if (fullyContains(assignmentPair)) {
+                fullyContainedCount++;
+            }
+            if (isOverlapping(assignmentPair)) {
+                overlappingCount++;
+            }
+        }
+
+        @Override
+        public String part1() {
+            return String.valueOf(fullyContainedCount);
+        }
+
+        @Override
+        public String part2() {
+            return String.valueOf(overlappingCount);
+        }
+
+        @Override
+        public void save(DataOutput out) throws IOException {
+            out.writeLong(fullyContainedCount);
+            out.writeLong(overlappingCount);
+        }
+
+        @Override
+        public void load(DataInput in) throws IOException {
+            fullyContainedCount = in.readLong();
+            overlappingCount = in.readLong();
+        }
     }
 
 }
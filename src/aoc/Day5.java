@@ -1,10 +1,7 @@
 package aoc;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 
@@ -29,9 +26,107 @@ public class Day5 implements Solution {
         int to){ }
 
     record PuzzleInput (
-        List<Deque<Character>> stacks,
+        CrateStacks stacks,
         List<MoveInstruction> moveInstructions) { }
 
+    /**
+     * Each stack is a char[] with the top crate at the end, so moving a block of crates is a
+     * single arraycopy.
+     */
+    static class CrateStacks {
+
+        private final char[][] crates;
+        private final int[] heights;
+
+        CrateStacks(int numStacks) {
+            crates = new char[numStacks][16];
+            heights = new int[numStacks];
+        }
+
+        int size() {
+            return crates.length;
+        }
+
+        void push(int stack, char crate) {
+            ensureCapacity(stack, heights[stack] + 1);
+            crates[stack][heights[stack]++] = crate;
+        }
+
+        int height(int stack) {
+            return heights[stack];
+        }
+
+        char crateAt(int stack, int height) {
+            return crates[stack][height];
+        }
+
+        CrateStacks copy() {
+            CrateStacks copy = new CrateStacks(crates.length);
+            for (int stack = 0; stack < crates.length; stack++) {
+                copy.crates[stack] = Arrays.copyOf(crates[stack], crates[stack].length);
+                copy.heights[stack] = heights[stack];
+            }
+            return copy;
+        }
+
+        char top(int stack) {
+            if (heights[stack] == 0) {
+                throw new IllegalStateException("stack " + (stack + 1) + " is empty");
+            }
+            return crates[stack][heights[stack] - 1];
+        }
+
+        /**
+         * CrateMover 9001 picks up the crates all at once, so they keep their order.
+         */
+        void moveTogether(int howMany, int from, int to) {
+            if (howMany > heights[from]) {
+                throw new IllegalStateException("can't move " + howMany + " crates off stack " + (from + 1)
+                    + " which only has " + heights[from]);
+            }
+            ensureCapacity(to, heights[to] + howMany);
+            heights[from] -= howMany;
+            System.arraycopy(crates[from], heights[from], crates[to], heights[to], howMany);
+            heights[to] += howMany;
+        }
+
+        /**
+         * CrateMover 9000 moves one crate at a time, which lands the block upside down. Unless it
+         * puts each crate straight back where it took it from.
+         */
+        void moveOneAtATime(int howMany, int from, int to) {
+            moveTogether(howMany, from, to);
+            if (from == to) {
+                return;
+            }
+            char[] stack = crates[to];
+            for (int lo = heights[to] - howMany, hi = heights[to] - 1; lo < hi; lo++, hi--) {
+                char tmp = stack[lo];
+                stack[lo] = stack[hi];
+                stack[hi] = tmp;
+            }
+        }
+
+        /**
+         * Empty stacks have no top, so they are left out.
+         */
+        String tops() {
+            StringBuilder result = new StringBuilder();
+            for (int stack = 0; stack < crates.length; stack++) {
+                if (heights[stack] > 0) {
+                    result.append(top(stack));
+                }
+            }
+            return result.toString();
+        }
+
+        private void ensureCapacity(int stack, int capacity) {
+            if (capacity > crates[stack].length) {
+                crates[stack] = Arrays.copyOf(crates[stack], Math.max(capacity, crates[stack].length * 2));
+            }
+        }
+    }
+
 
     /*
      *     [D]
@@ -54,7 +149,7 @@ public class Day5 implements Solution {
         [H] [B] [R] [S] [R] [T] [S] [R] [L]
          1   2   3   4   5   6   7   8   9
      */
-    private static PuzzleInput parse(String input) {
+    static PuzzleInput parse(String input) {
         Iterator<String> lines = input.lines().iterator();
 
         final int numStacks;
@@ -72,10 +167,7 @@ public class Day5 implements Solution {
             stackBuffer.add(line);
         }
 
-        List<Deque<Character>> stacks = new ArrayList<>();
-        for (int i = 0; i < numStacks; i++) {
-            stacks.add(new ArrayDeque<>());
-        }
+        CrateStacks stacks = new CrateStacks(numStacks);
 
         for (int i = stackBuffer.size()-1; i >= 0; i--) {
             String line = stackBuffer.get(i);
@@ -87,7 +179,7 @@ public class Day5 implements Solution {
                 if (characterPosn < line.length()) {
                     char c = line.charAt(characterPosn);
                     if (c != ' ') {
-                        stacks.get(stackId).addLast(c);
+                        stacks.push(stackId, c);
                     }
                 }
             }
@@ -115,49 +207,110 @@ public class Day5 implements Solution {
         return new PuzzleInput(stacks, moveInstructions);
     }
 
-    private static String part1Impl(String s) {
-        PuzzleInput puzzleInput = parse(s);
-        //System.out.println(puzzleInput);
+    private static String simulate(PuzzleInput puzzleInput, boolean oneAtATime) {
+        CrateStacks stacks = puzzleInput.stacks.copy();
 
         for(MoveInstruction moveInstruction : puzzleInput.moveInstructions) {
-            for (int i = 0; i < moveInstruction.howMany; i++) {
-                puzzleInput.stacks.get(moveInstruction.to-1)
-                    .addLast(puzzleInput.stacks.get(moveInstruction.from-1).removeLast());
+            if (oneAtATime) {
+                stacks.moveOneAtATime(moveInstruction.howMany, moveInstruction.from-1, moveInstruction.to-1);
+            } else {
+                stacks.moveTogether(moveInstruction.howMany, moveInstruction.from-1, moveInstruction.to-1);
             }
-            //System.out.println(puzzleInput);
         }
 
-        StringBuilder result = new StringBuilder();
-        for (Deque<Character> stack : puzzleInput.stacks) {
-            // result.append(stack.peek()); // BUG
-            result.append(stack.getLast());
-        }
-        return result.toString();
+        return stacks.tops();
     }
 
-    private static String part2Impl(String s) {
-        PuzzleInput puzzleInput = parse(s);
-        //System.out.println(puzzleInput);
+    /**
+     * Only the top crates are asked for, so instead of moving every crate follow each final top
+     * position backwards through the instructions to the crate that started there.
+     *
+     * Going backwards, a position on the to stack at or above where the block landed came from
+     * the from stack, at the same offset into the block for the 9001 and at the mirrored offset
+     * for the 9000. Every other position stayed where it was.
+     */
+    private static String traceBack(PuzzleInput puzzleInput, boolean oneAtATime) {
+        CrateStacks initial = puzzleInput.stacks;
+        int numStacks = initial.size();
 
-        for(MoveInstruction moveInstruction : puzzleInput.moveInstructions) {
-            List<Character> crateBuffer = new ArrayList<>();
-            for (int i = 0; i < moveInstruction.howMany; i++) {
-                crateBuffer.add(puzzleInput.stacks.get(moveInstruction.from-1).removeLast());
-            };
-            Collections.reverse(crateBuffer);
-            for (char c : crateBuffer) {
-                puzzleInput.stacks.get(moveInstruction.to-1).addLast(c);
+        int[] heights = new int[numStacks];
+        for (int stack = 0; stack < numStacks; stack++) {
+            heights[stack] = initial.height(stack);
+        }
+        for (MoveInstruction moveInstruction : puzzleInput.moveInstructions) {
+            if (moveInstruction.howMany > heights[moveInstruction.from-1]) {
+                throw new IllegalStateException("can't move " + moveInstruction.howMany + " crates off stack "
+                    + moveInstruction.from + " which only has " + heights[moveInstruction.from-1]);
+            }
+            heights[moveInstruction.from-1] -= moveInstruction.howMany;
+            heights[moveInstruction.to-1] += moveInstruction.howMany;
+        }
+
+        // where the crate that ends up on top of each stack is, as of the instruction being undone
+        int[] positionStack = new int[numStacks];
+        int[] positionHeight = new int[numStacks];
+        for (int stack = 0; stack < numStacks; stack++) {
+            positionStack[stack] = stack;
+            positionHeight[stack] = heights[stack] - 1;
+        }
+
+        for (int i = puzzleInput.moveInstructions.size() - 1; i >= 0; i--) {
+            MoveInstruction moveInstruction = puzzleInput.moveInstructions.get(i);
+            int from = moveInstruction.from-1;
+            int to = moveInstruction.to-1;
+            int howMany = moveInstruction.howMany;
+            if (from == to) {
+                continue;
             }
+            // undo the heights first so they are the ones from before the instruction
+            heights[to] -= howMany;
+            heights[from] += howMany;
 
-            //System.out.println(puzzleInput);
+            for (int stack = 0; stack < numStacks; stack++) {
+                if (positionStack[stack] == to && positionHeight[stack] >= heights[to]) {
+                    int offsetInBlock = positionHeight[stack] - heights[to];
+                    positionStack[stack] = from;
+                    positionHeight[stack] = oneAtATime
+                        ? heights[from] - 1 - offsetInBlock
+                        : heights[from] - howMany + offsetInBlock;
+                }
+            }
         }
 
         StringBuilder result = new StringBuilder();
-        for (Deque<Character> stack : puzzleInput.stacks) {
-            // result.append(stack.peek()); // BUG
-            result.append(stack.getLast());
+        for (int stack = 0; stack < numStacks; stack++) {
+            if (positionHeight[stack] >= 0) {
+                result.append(initial.crateAt(positionStack[stack], positionHeight[stack]));
+            }
         }
         return result.toString();
     }
 
+    private static long cratesMoved(PuzzleInput puzzleInput) {
+        return puzzleInput.moveInstructions.stream().mapToLong(MoveInstruction::howMany).sum();
+    }
+
+    private static long traceSteps(PuzzleInput puzzleInput) {
+        return (long) puzzleInput.stacks.size() * puzzleInput.moveInstructions.size();
+    }
+
+    /**
+     * simulate pays per crate moved, traceBack per stack per instruction
+     */
+    static final Variants<PuzzleInput, String> PART1 = new Variants<PuzzleInput, String>("day5.part1")
+        .register("simulate", Day5::cratesMoved, puzzleInput -> simulate(puzzleInput, true))
+        .register("traceBack", Day5::traceSteps, puzzleInput -> traceBack(puzzleInput, true));
+
+    static final Variants<PuzzleInput, String> PART2 = new Variants<PuzzleInput, String>("day5.part2")
+        .register("simulate", Day5::cratesMoved, puzzleInput -> simulate(puzzleInput, false))
+        .register("traceBack", Day5::traceSteps, puzzleInput -> traceBack(puzzleInput, false));
+
+    private static String part1Impl(String s) {
+        return PART1.run(parse(s));
+    }
+
+    private static String part2Impl(String s) {
+        return PART2.run(parse(s));
+    }
+
 }
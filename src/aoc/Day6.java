@@ -1,12 +1,18 @@
 package aoc;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
 /**
  * <a href="https://adventofcode.com/2022/day/6>Day 6: Tuning Trouble</a>
@@ -23,47 +29,207 @@ public class Day6 implements Solution {
         return String.valueOf(part2Impl(input));
     }
 
-    private static int solve(String s, int numChars) {
-        int[] counts = new int['z' -'a' + 1];
-        int oneCount = 0;
-
-        Deque<Integer> buffer = new ArrayDeque<>(numChars+1);
-        for (int i = 0; i < s.length(); i++) {
-            int idx = s.charAt(i) - 'a';
-            counts[idx]++;
-            if (counts[idx] == 1) {
-                oneCount++;
-            } else if (counts[idx] == 2) {
-                oneCount--;
+    /**
+     * Finds the markers for several window sizes in one pass over the signal.
+     *
+     * Only where each byte was last seen is kept. The bytes since the last repeat are all
+     * different, so a marker of size w ends at the first position where that run is at least w
+     * long. Memory does not depend on the window sizes or the length of the signal.
+     */
+    static final class MarkerDetector {
+
+        private final int[] windowSizes;
+        private final long[] markers;
+        private final long[] lastSeen = new long[256];
+        private int unresolved;
+        private long position;
+        // start of the run of distinct bytes ending at the current position
+        private long distinctFrom;
+
+        /**
+         * @param position where in the signal the first byte passed to accept is
+         */
+        MarkerDetector(long position, int... windowSizes) {
+            this.windowSizes = windowSizes;
+            this.markers = new long[windowSizes.length];
+            Arrays.fill(markers, -1);
+            Arrays.fill(lastSeen, position - 1);
+            this.unresolved = windowSizes.length;
+            this.position = position;
+            this.distinctFrom = position;
+        }
+
+        /**
+         * @return whether more of the signal is needed, false once every marker is found or the
+         *         signal ended with a line terminator
+         */
+        boolean accept(byte b) {
+            if (b == '\n' || b == '\r') {
+                return false;
+            }
+            distinctFrom = Math.max(distinctFrom, lastSeen[b & 0xff] + 1);
+            lastSeen[b & 0xff] = position;
+            long distinct = position - distinctFrom + 1;
+            position++;
+            for (int i = 0; i < windowSizes.length; i++) {
+                if (markers[i] < 0 && distinct >= windowSizes[i]) {
+                    // markers count the characters up to and including the last one of the window
+                    markers[i] = position;
+                    unresolved--;
+                }
+            }
+            return unresolved > 0;
+        }
+
+        /**
+         * @return whether more of the signal is needed
+         */
+        boolean accept(ByteBuffer bytes) {
+            while (bytes.hasRemaining()) {
+                if (!accept(bytes.get())) {
+                    return false;
+                }
             }
+            return true;
+        }
+
+        long position() {
+            return position;
+        }
+
+        /**
+         * @return per window size the marker, or -1 if the signal didn't have one
+         */
+        long[] markers() {
+            return markers.clone();
+        }
+    }
 
-            buffer.addLast(idx);
+    /**
+     * Streams the signal through a fixed buffer, so it doesn't have to fit in memory.
+     *
+     * @return per window size the marker, or -1 if the signal didn't have one
+     */
+    static long[] markers(ReadableByteChannel channel, int... windowSizes) throws IOException {
+        MarkerDetector detector = new MarkerDetector(0, windowSizes);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        while (channel.read(buffer.clear()) > 0) {
+            if (!detector.accept(buffer.flip())) {
+                break;
+            }
+        }
+        return detector.markers();
+    }
 
-            if (buffer.size() >= numChars+1) {
-                int remove = buffer.removeFirst();
-                counts[remove]--;
-                if (counts[remove] == 1) {
-                    oneCount++;
-                } else if (counts[remove] == 0) {
-                    oneCount--;
+    /**
+     * Searches pieces of the file on the fork join pool. Each piece starts window-1 bytes before
+     * the previous one ends so markers straddling the cut are still found. A piece gives up as soon
+     * as every marker found elsewhere lies before where it is reading, which is at once for every
+     * piece after the one with the earliest hit.
+     *
+     * @return per window size the marker, or -1 if the signal didn't have one
+     */
+    static long[] markersParallel(Path file, int... windowSizes) throws IOException {
+        int overlap = Arrays.stream(windowSizes).max().orElse(1) - 1;
+        AtomicLongArray earliest = new AtomicLongArray(windowSizes.length);
+        for (int i = 0; i < windowSizes.length; i++) {
+            earliest.set(i, Long.MAX_VALUE);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Chunking.chunkSize(size);
+            int numChunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+            IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+                long start = Math.max(0, chunk * chunkSize - overlap);
+                long end = Math.min(size, (chunk + 1) * chunkSize);
+                try {
+                    search(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), start, windowSizes, earliest);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+            });
+        }
+
+        long[] markers = new long[windowSizes.length];
+        for (int i = 0; i < windowSizes.length; i++) {
+            markers[i] = earliest.get(i) == Long.MAX_VALUE ? -1 : earliest.get(i);
+        }
+        return markers;
+    }
+
+    private static void search(ByteBuffer bytes, long start, int[] windowSizes, AtomicLongArray earliest) {
+        MarkerDetector detector = new MarkerDetector(start, windowSizes);
+        boolean more = true;
+        while (more && bytes.hasRemaining() && !beatenBefore(detector.position(), earliest)) {
+            // check on the other pieces every block rather than every byte
+            more = detector.accept(bytes.slice(bytes.position(), Math.min(bytes.remaining(), 1 << 16)));
+            bytes.position(bytes.position() + Math.min(bytes.remaining(), 1 << 16));
+        }
+        long[] markers = detector.markers();
+        for (int i = 0; i < markers.length; i++) {
+            if (markers[i] >= 0) {
+                earliest.accumulateAndGet(i, markers[i], Math::min);
             }
+        }
+    }
 
-            if (oneCount == numChars) {
-                return i + 1;
+    /**
+     * @return whether every window already has a marker ending before position
+     */
+    private static boolean beatenBefore(long position, AtomicLongArray earliest) {
+        for (int i = 0; i < earliest.length(); i++) {
+            if (earliest.get(i) > position) {
+                return false;
             }
         }
+        return true;
+    }
 
-        // not found
-        throw new IllegalStateException("Excepted input to have a start sequence");
+    private static long solve(String s, int numChars) {
+        long marker;
+        try {
+            marker = markers(Channels.newChannel(new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII))), numChars)[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (marker < 0) {
+            throw new IllegalStateException("Excepted input to have a start sequence");
+        }
+        return marker;
     }
 
-    private static int part1Impl(String s) {
+    private static long part1Impl(String s) {
         return solve(s, 4);
     }
 
-    private static int part2Impl(String s) {
+    private static long part2Impl(String s) {
         return solve(s, 14);
     }
 
+    /**
+     * Usage: Day6 [-parallel] file [window size...]
+     */
+    public static void main(String[] args) throws IOException {
+        boolean parallel = args[0].equals("-parallel");
+        int first = parallel ? 1 : 0;
+        Path file = Path.of(args[first]);
+        int[] windowSizes = args.length >= first + 2
+            ? Arrays.stream(args, first + 1, args.length).mapToInt(Integer::parseInt).toArray()
+            : new int[]{4, 14};
+
+        long[] markers;
+        if (parallel) {
+            markers = markersParallel(file, windowSizes);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                markers = markers(channel, windowSizes);
+            }
+        }
+        for (int i = 0; i < windowSizes.length; i++) {
+            System.out.println(windowSizes[i] + ": " + markers[i]);
+        }
+    }
+
 }
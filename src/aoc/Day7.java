@@ -1,1098 +1,629 @@
 package aoc;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * <a href="https://adventofcode.com/2022/day/7>Day 7: No Space Left On Device</a>
  */
-public class Day7 {
+public class Day7 implements Solution {
 
-    record CD (String name) {
+    @Override
+    public String part1(String input) {
+        return String.valueOf(part1Impl(input));
+    }
 
+    @Override
+    public String part2(String input) {
+        return String.valueOf(part2Impl(input));
     }
 
-    record LS () {
+    /**
+     * Told about every directory as it is made and every change to a total size, for keeping an
+     * index up to date while the log is still being read.
+     */
+    interface SizeListener {
 
+        void directoryAdded(int directory);
+
+        void sizeChanged(int directory, long oldSize, long newSize);
     }
 
-    record Directory (String name) {
+    /**
+     * The directories seen in a terminal log, kept in parallel arrays indexed by directory number
+     * with the root as 0. Names are interned to ints and children are found by parent and name in
+     * a {@link ChildIndex}, so a cd or dir line costs the same however wide the directory is.
+     *
+     * Files only add to the size of the directory they are listed in. What a directory has
+     * gathered is passed on to its parent when it is left with cd .., so nothing needs a second
+     * pass over the tree and nothing recurses.
+     *
+     * With a listener file sizes are instead added to every directory up to the root straight
+     * away, so the totals are always current at O(depth) per file.
+     */
+    static final class DirectoryTree {
 
-    }
+        static final int ROOT = 0;
+        private static final int NONE = -1;
 
-    record FileSize (long fileSize, String name) {
+        private int[] parent = new int[16];
+        private int[] name = new int[16];
+        private long[] size = new long[16];
+        // how much of size has been passed on to the parent already
+        private long[] propagated = new long[16];
+        private int count = 0;
 
-    }
+        private final Map<String, Integer> names = new HashMap<>();
+        private final ChildIndex children = new ChildIndex();
+        private final SizeListener listener;
+        private int cwd;
 
-    private static Object parse(String line) {
-        String[] columns = line.split(" ");
-        if (line.startsWith("$ cd")) {
-            return new CD(columns[2]);
-        } else if (line.startsWith("$ ls")) {
-            return new LS();
-        } else if (line.startsWith("dir")){
-            return new Directory(columns[1]);
-        } else {
-            return new FileSize(Long.parseLong(columns[0]), columns[1]);
+        DirectoryTree() {
+            this(null);
         }
-    }
 
-    private static class MutableDirectory {
-        long directSize;
-        boolean computedCost;
-        long indirectSize;
+        DirectoryTree(SizeListener listener) {
+            this.listener = listener;
+            cwd = newDirectory(NONE, intern("/"));
+        }
 
-        Map<String, MutableDirectory> subDirectories = new HashMap<>();
-    }
+        /**
+         * Reads the log straight out of the bytes a line at a time.
+         */
+        static DirectoryTree of(ByteBuffer bytes) {
+            DirectoryTree tree = new DirectoryTree();
+            byte[] line = new byte[256];
+            int length = 0;
+            while (bytes.hasRemaining()) {
+                byte b = bytes.get();
+                if (b == '\n') {
+                    tree.accept(line, 0, length);
+                    length = 0;
+                } else if (b != '\r') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                }
+            }
+            tree.accept(line, 0, length);
+            return tree;
+        }
 
-    private static long calculateDirectorySize(MutableDirectory cwd) {
-        if (cwd.computedCost) {
-            return cwd.indirectSize;
+        static DirectoryTree of(String s) {
+            return of(ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8)));
         }
 
-        long indirectSize = cwd.directSize;
-        for(MutableDirectory subDir : cwd.subDirectories.values()) {
-            indirectSize += calculateDirectorySize(subDir);
+        void accept(byte[] line, int from, int to) {
+            if (to - from == 0) {
+                return;
+            }
+            if (startsWith(line, from, to, "$ cd ")) {
+                cd(new String(line, from + 5, to - from - 5, StandardCharsets.UTF_8));
+            } else if (startsWith(line, from, to, "$ ls")) {
+                // the listing that follows is for cwd
+            } else if (startsWith(line, from, to, "dir ")) {
+                child(cwd, intern(new String(line, from + 4, to - from - 4, StandardCharsets.UTF_8)));
+            } else {
+                addFile(parseFileSize(line, from, to));
+            }
         }
 
-        cwd.computedCost = true;
-        cwd.indirectSize = indirectSize;
-        return indirectSize;
-    }
+        private void addFile(long fileSize) {
+            if (listener == null) {
+                size[cwd] += fileSize;
+                return;
+            }
+            for (int directory = cwd; directory != NONE; directory = parent[directory]) {
+                listener.sizeChanged(directory, size[directory], size[directory] + fileSize);
+                size[directory] += fileSize;
+                propagated[directory] = size[directory];
+            }
+        }
+
+        private static boolean startsWith(byte[] line, int from, int to, String prefix) {
+            if (to - from < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (line[from + i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long parseFileSize(byte[] line, int from, int to) {
+            long fileSize = 0;
+            int i = from;
+            while (i < to && line[i] >= '0' && line[i] <= '9') {
+                fileSize = fileSize * 10 + (line[i] - '0');
+                i++;
+            }
+            if (i == from) {
+                throw new IllegalStateException("unrecognized line: " + new String(line, from, to - from, StandardCharsets.UTF_8));
+            }
+            return fileSize;
+        }
+
+        private void cd(String target) {
+            switch (target) {
+                case "/" -> {
+                    while (cwd != ROOT) {
+                        up();
+                    }
+                }
+                case ".." -> {
+                    if (cwd == ROOT) {
+                        throw new IllegalStateException("can't cd .. out of /");
+                    }
+                    up();
+                }
+                default -> cwd = child(cwd, intern(target));
+            }
+        }
+
+        private void up() {
+            rollUp(cwd);
+            cwd = parent[cwd];
+        }
+
+        /**
+         * Passes on to the parent whatever the directory gathered since the last time.
+         */
+        private void rollUp(int directory) {
+            long gathered = size[directory] - propagated[directory];
+            size[parent[directory]] += gathered;
+            propagated[directory] = size[directory];
+        }
+
+        private int intern(String directoryName) {
+            return names.computeIfAbsent(directoryName, n -> names.size());
+        }
+
+        /**
+         * The child of directory with the given name, made if the log didn't list it before.
+         */
+        private int child(int directory, int childName) {
+            int child = children.get(directory, childName);
+            return child != NONE ? child : newDirectory(directory, childName);
+        }
+
+        private int newDirectory(int parentDirectory, int directoryName) {
+            if (count == parent.length) {
+                int capacity = count * 2;
+                parent = Arrays.copyOf(parent, capacity);
+                name = Arrays.copyOf(name, capacity);
+                size = Arrays.copyOf(size, capacity);
+                propagated = Arrays.copyOf(propagated, capacity);
+            }
+            int directory = count++;
+            parent[directory] = parentDirectory;
+            name[directory] = directoryName;
+            if (parentDirectory != NONE) {
+                children.put(parentDirectory, directoryName, directory);
+            }
+            size[directory] = 0;
+            propagated[directory] = 0;
+            if (listener != null) {
+                listener.directoryAdded(directory);
+            }
+            return directory;
+        }
+
+        int size() {
+            return count;
+        }
+
+        /**
+         * Brings the directories from cwd up to the root up to date, as if the log ended with cd /.
+         *
+         * @return the total size of every directory, indexed by directory number
+         */
+        long[] totalSizes() {
+            for (int directory = cwd; directory != ROOT; directory = parent[directory]) {
+                rollUp(directory);
+            }
+            return Arrays.copyOf(size, count);
+        }
 
-    private static long sumAtMost(MutableDirectory cwd, long limit) {
-        long sum = 0;
-        if (cwd.indirectSize <= limit) {
-            sum += cwd.indirectSize;
+        void save(DataOutput out) throws IOException {
+            String[] byId = new String[names.size()];
+            names.forEach((directoryName, id) -> byId[id] = directoryName);
+            out.writeInt(byId.length);
+            for (String directoryName : byId) {
+                out.writeUTF(directoryName);
+            }
+            out.writeInt(count);
+            out.writeInt(cwd);
+            for (int directory = 0; directory < count; directory++) {
+                out.writeInt(parent[directory]);
+                out.writeInt(name[directory]);
+                out.writeLong(size[directory]);
+                out.writeLong(propagated[directory]);
+            }
         }
 
-        for(MutableDirectory subDir : cwd.subDirectories.values()) {
-            sum += sumAtMost(subDir, limit);
+        /**
+         * Rebuilds a saved tree, telling the listener about every directory as if the log had
+         * been read again.
+         */
+        static DirectoryTree load(DataInput in, SizeListener listener) throws IOException {
+            DirectoryTree tree = new DirectoryTree(listener);
+            int numNames = in.readInt();
+            for (int id = 0; id < numNames; id++) {
+                tree.intern(in.readUTF());
+            }
+            int count = in.readInt();
+            int cwd = in.readInt();
+            // the root was made by the constructor
+            in.readInt();
+            in.readInt();
+            tree.loadSizes(ROOT, in.readLong(), in.readLong());
+            for (int directory = 1; directory < count; directory++) {
+                int parentDirectory = in.readInt();
+                tree.newDirectory(parentDirectory, in.readInt());
+                tree.loadSizes(directory, in.readLong(), in.readLong());
+            }
+            tree.cwd = cwd;
+            return tree;
         }
 
-        return sum;
+        private void loadSizes(int directory, long total, long totalPropagated) {
+            if (listener != null) {
+                listener.sizeChanged(directory, size[directory], total);
+            }
+            size[directory] = total;
+            propagated[directory] = totalPropagated;
+        }
     }
 
-    private static MutableDirectory makeDirectories(String input) {
-        Deque<MutableDirectory> pathSoFar = new ArrayDeque<>();
-
-        Iterator<Object> commands = input.lines()
-            .map(Day7::parse)
-            .iterator();
-
-        MutableDirectory root = new MutableDirectory();
-        MutableDirectory cwd = root;
-        commands.next(); // skip root
-
-        while(commands.hasNext()) {
-            Object command = commands.next();
-            switch (command) {
-                case CD(String name):
-                    //System.out.println("cd " + name);
-                    if ("..".equals(name)) {
-                        cwd = pathSoFar.removeLast();
-                    } else {
-                        pathSoFar.addLast(cwd);
-                        cwd = cwd.subDirectories.get(name);
-                    }
+    /**
+     * Child directories by parent and interned name, packed into longs in an open addressing
+     * table so a lookup doesn't allocate.
+     */
+    static final class ChildIndex {
+
+        // parent -1 is never looked up, the root has no parent
+        private static final long EMPTY = -1L;
+
+        private long[] keys = new long[1 << 4];
+        private int[] children = new int[1 << 4];
+        private int size = 0;
+
+        ChildIndex() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private static long pack(int directory, int childName) {
+            return ((long) directory << 32) | (childName & 0xffffffffL);
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+        }
 
-                    break;
-                case LS():
-                    // NO OP
-                    //System.out.println("$ ls");
-                    break;
-                case Directory(String name):
-                    //System.out.println("dir " + name);
-                    cwd.subDirectories.put(name, new MutableDirectory());
-                    break;
-                case FileSize(long fileSize, String name):
-                    //System.out.println(fileSize + " " + name);
-                    cwd.directSize += fileSize;
-                    break;
-                default:
-                    throw new IllegalStateException("unrecognized command: " + command);
+        /**
+         * @return the child, or -1 if directory has none by that name
+         */
+        int get(int directory, int childName) {
+            long key = pack(directory, childName);
+            int mask = keys.length - 1;
+            for (int i = slot(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
             }
+            return -1;
         }
-        calculateDirectorySize(root);
 
-        return root;
+        void put(int directory, int childName, int child) {
+            put(pack(directory, childName), child);
+        }
+
+        private void put(long key, int child) {
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            children[i] = child;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldChildren = children;
+            keys = new long[oldKeys.length * 2];
+            children = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldChildren[i]);
+                }
+            }
+        }
     }
 
-    private static long part1(String input) {
-        MutableDirectory root = makeDirectories(input);
-        return sumAtMost(root, 100000L);
+    /**
+     * Directory sizes sorted, with prefix sums, so threshold questions are a binary search.
+     */
+    record SizeIndex(long[] sorted, long[] prefixSums) {
+
+        static SizeIndex of(long[] sizes) {
+            long[] sorted = sizes.clone();
+            Arrays.sort(sorted);
+            long[] prefixSums = new long[sorted.length + 1];
+            for (int i = 0; i < sorted.length; i++) {
+                prefixSums[i + 1] = prefixSums[i] + sorted[i];
+            }
+            return new SizeIndex(sorted, prefixSums);
+        }
+
+        /**
+         * @return how many sizes are less than limit
+         */
+        private int countBelow(long limit) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < limit) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        long sumAtMost(long limit) {
+            return limit == Long.MAX_VALUE ? prefixSums[sorted.length] : prefixSums[countBelow(limit + 1)];
+        }
+
+        /**
+         * @return the smallest size of at least minimum, Long.MAX_VALUE if there is none
+         */
+        long smallestAtLeast(long minimum) {
+            int index = countBelow(minimum);
+            return index == sorted.length ? Long.MAX_VALUE : sorted[index];
+        }
+
+        long largest() {
+            return sorted[sorted.length - 1];
+        }
     }
 
-    private static long findSmallest(MutableDirectory cwd, long spaceToFree) {
-        long smallestSoFar = Long.MAX_VALUE;
-        if (cwd.indirectSize >= spaceToFree) {
-            smallestSoFar = cwd.indirectSize;
+    /**
+     * The same questions as {@link SizeIndex} for sizes that keep changing. Directories are the
+     * nodes of a treap ordered by size, then directory number, and each node knows the sum of
+     * the sizes below it. Changing a size takes the node out and puts it back, O(log n).
+     */
+    static final class DynamicSizeIndex implements SizeListener {
+
+        private static final int NONE = -1;
+
+        private final Random random = new Random(7);
+        private long[] key = new long[16];
+        private int[] priority = new int[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private long[] subtreeSum = new long[16];
+        private int root = NONE;
+
+        // what split leaves behind, to avoid allocating a pair per call
+        private int splitLeft;
+        private int splitRight;
+
+        @Override
+        public void directoryAdded(int node) {
+            if (node >= key.length) {
+                int capacity = Math.max(node + 1, key.length * 2);
+                key = Arrays.copyOf(key, capacity);
+                priority = Arrays.copyOf(priority, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                subtreeSum = Arrays.copyOf(subtreeSum, capacity);
+            }
+            key[node] = 0;
+            priority[node] = random.nextInt();
+            insert(node);
+        }
+
+        @Override
+        public void sizeChanged(int node, long oldSize, long newSize) {
+            remove(node);
+            key[node] = newSize;
+            insert(node);
+        }
+
+        private boolean before(int node, long size, int other) {
+            return key[node] < size || (key[node] == size && node < other);
+        }
+
+        private void insert(int node) {
+            left[node] = NONE;
+            right[node] = NONE;
+            subtreeSum[node] = key[node];
+            split(root, key[node], node);
+            int rest = splitRight;
+            root = merge(merge(splitLeft, node), rest);
+        }
+
+        private void remove(int node) {
+            split(root, key[node], node);
+            int smaller = splitLeft;
+            split(splitRight, key[node], node + 1);
+            // splitLeft is now just node
+            root = merge(smaller, splitRight);
+        }
+
+        /**
+         * Splits t into the nodes before (size, node) and the rest.
+         */
+        private void split(int t, long size, int node) {
+            if (t == NONE) {
+                splitLeft = NONE;
+                splitRight = NONE;
+            } else if (before(t, size, node)) {
+                split(right[t], size, node);
+                right[t] = splitLeft;
+                update(t);
+                splitLeft = t;
+            } else {
+                split(left[t], size, node);
+                left[t] = splitRight;
+                update(t);
+                splitRight = t;
+            }
+        }
+
+        private int merge(int a, int b) {
+            if (a == NONE) {
+                return b;
+            }
+            if (b == NONE) {
+                return a;
+            }
+            if (priority[a] > priority[b]) {
+                right[a] = merge(right[a], b);
+                update(a);
+                return a;
+            }
+            left[b] = merge(a, left[b]);
+            update(b);
+            return b;
+        }
+
+        private void update(int t) {
+            subtreeSum[t] = key[t] + sum(left[t]) + sum(right[t]);
+        }
+
+        private long sum(int t) {
+            return t == NONE ? 0 : subtreeSum[t];
+        }
+
+        long sumAtMost(long limit) {
+            long total = 0;
+            int t = root;
+            while (t != NONE) {
+                if (key[t] <= limit) {
+                    total += sum(left[t]) + key[t];
+                    t = right[t];
+                } else {
+                    t = left[t];
+                }
+            }
+            return total;
+        }
+
+        /**
+         * @return the smallest size of at least minimum, Long.MAX_VALUE if there is none
+         */
+        long smallestAtLeast(long minimum) {
+            long smallest = Long.MAX_VALUE;
+            int t = root;
+            while (t != NONE) {
+                if (key[t] >= minimum) {
+                    smallest = key[t];
+                    t = left[t];
+                } else {
+                    t = right[t];
+                }
+            }
+            return smallest;
         }
 
-        for(MutableDirectory subDir : cwd.subDirectories.values()) {
-            long current = findSmallest(subDir, spaceToFree);
-            if (current < smallestSoFar) {
-                smallestSoFar = current;
+        long largest() {
+            int t = root;
+            while (right[t] != NONE) {
+                t = right[t];
             }
+            return key[t];
         }
+    }
 
-        return smallestSoFar;
+    private static long part1Impl(String input) {
+        return SizeIndex.of(DirectoryTree.of(input).totalSizes()).sumAtMost(100000L);
     }
 
     /**
      * The total disk space available to the filesystem is 70000000.
      * To run the update, you need unused space of at least 30000000.
      */
-    private static long part2(String input) {
-        MutableDirectory root = makeDirectories(input);
+    private static long part2Impl(String input) {
+        // the root contains everything so it is the largest
+        SizeIndex index = SizeIndex.of(DirectoryTree.of(input).totalSizes());
 
         //                 space we need  capacity     space we used
-        long spaceToFree = 30000000 - (70000000-root.indirectSize);
-
-
+        long spaceToFree = 30000000 - (70000000-index.largest());
 
-        return findSmallest(root, spaceToFree);
+        return index.smallestAtLeast(spaceToFree);
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        String sample = MappedInput.readString(Path.of("input/day_7_sample.txt"));
+        String input = MappedInput.readString(Path.of("input/day_7.txt"));
         System.out.println(95437);
-        System.out.println(part1(SAMPLE));
-        System.out.println(part1(INPUT));
+        System.out.println(part1Impl(sample));
+        System.out.println(part1Impl(input));
         System.out.println("==========");
         System.out.println(24933642);
-        System.out.println(part2(SAMPLE));
-        System.out.println(part2(INPUT));
+        System.out.println(part2Impl(sample));
+        System.out.println(part2Impl(input));
     }
 
-    private static final String SAMPLE = """
-$ cd /
-$ ls
-dir a
-14848514 b.txt
-8504156 c.dat
-dir d
-$ cd a
-$ ls
-dir e
-29116 f
-2557 g
-62596 h.lst
-$ cd e
-$ ls
-584 i
-$ cd ..
-$ cd ..
-$ cd d
-$ ls
-4060174 j
-8033020 d.log
-5626152 d.ext
-7214296 k
-""";
-
-    private static final String INPUT = """
-$ cd /
-$ ls
-dir ctd
-80649 mwcj.pmh
-212527 nbb.ztq
-dir pgqmwn
-152170 scr.smr
-17637 snqcgbs.nhv
-dir tmw
-dir vtm
-$ cd ctd
-$ ls
-dir bblsqnwl
-dir gzcjrs
-dir pgqmwn
-dir qzgjp
-dir shmvmqv
-$ cd bblsqnwl
-$ ls
-dir rng
-$ cd rng
-$ ls
-dir jncpmzcs
-dir pttvmghm
-293353 qcjbfggw.tjj
-dir sgm
-$ cd jncpmzcs
-$ ls
-36126 tstwmrbr.bmr
-$ cd ..
-$ cd pttvmghm
-$ ls
-38802 ctttjn.nzr
-$ cd ..
-$ cd sgm
-$ ls
-dir djcbdbgr
-dir gqrr
-$ cd djcbdbgr
-$ ls
-254050 nbb.ztq
-$ cd ..
-$ cd gqrr
-$ ls
-168685 jgsqvf.tql
-302004 shmvmqv
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd gzcjrs
-$ ls
-319972 bwnjnmmh.wwd
-25495 fzthlhcp.nst
-291270 ghjc.nvf
-244664 jrlfb.fvz
-$ cd ..
-$ cd pgqmwn
-$ ls
-dir zpvthlgp
-$ cd zpvthlgp
-$ ls
-128092 dqvcqs.zpb
-140511 nvqsqtjw
-$ cd ..
-$ cd ..
-$ cd qzgjp
-$ ls
-23062 jgsqvf.tql
-254685 nbb.ztq
-dir pgqmwn
-320683 shmvmqv
-105368 shmvmqv.hmg
-60805 snqcgbs
-$ cd pgqmwn
-$ ls
-47287 gffvwmr.pbd
-$ cd ..
-$ cd ..
-$ cd shmvmqv
-$ ls
-80751 crtwwqb
-dir dbfm
-dir dhhghph
-dir pgqmwn
-195177 qnm
-dir qpbn
-dir rwmsqdw
-dir shmvmqv
-16133 shmvmqv.vwq
-187938 tmw
-$ cd dbfm
-$ ls
-dir gbpnjrt
-265813 glzz.mjv
-108147 nbb.ztq
-229253 nvqsqtjw
-85743 pgqmwn
-261375 qnm
-$ cd gbpnjrt
-$ ls
-179812 mtp.lnf
-234550 shmvmqv.qvq
-$ cd ..
-$ cd ..
-$ cd dhhghph
-$ ls
-dir ghmpb
-70514 zqv.ssn
-$ cd ghmpb
-$ ls
-132693 shmvmqv.csb
-$ cd ..
-$ cd ..
-$ cd pgqmwn
-$ ls
-dir hcbtbr
-200292 pgqmwn
-67530 sgm
-15442 snqcgbs
-$ cd hcbtbr
-$ ls
-249252 dqvcqs.zpb
-$ cd ..
-$ cd ..
-$ cd qpbn
-$ ls
-dir pmbw
-261142 qnm
-dir rsfh
-239788 sgm
-dir wfwl
-$ cd pmbw
-$ ls
-dir gwwdtzp
-dir jszzc
-32725 rnggjs.cbv
-dir sldv
-dir tptrlz
-$ cd gwwdtzp
-$ ls
-dir dlvbdn
-63066 dslb.mrp
-dir shmvmqv
-dir tzssf
-$ cd dlvbdn
-$ ls
-190731 nqv.csc
-$ cd ..
-$ cd shmvmqv
-$ ls
-223667 nbb.ztq
-$ cd ..
-$ cd tzssf
-$ ls
-27296 rlgswwzq.dgj
-dir tfdq
-206881 wrdqg.pfj
-$ cd tfdq
-$ ls
-26512 wsgh
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd jszzc
-$ ls
-218701 qpz.hdm
-$ cd ..
-$ cd sldv
-$ ls
-dir hsbzqtml
-3895 jgsqvf.tql
-181815 nbb.ztq
-294048 shmvmqv.fcm
-dir snqcgbs
-dir tmw
-203484 zfpjq.pvn
-dir zlpwdp
-$ cd hsbzqtml
-$ ls
-dir shmvmqv
-$ cd shmvmqv
-$ ls
-103536 nbb.ztq
-32635 wmc
-$ cd ..
-$ cd ..
-$ cd snqcgbs
-$ ls
-95112 dch
-$ cd ..
-$ cd tmw
-$ ls
-dir dplm
-275451 hsr.zhn
-9766 qnm
-177383 ztbmqjqb.hwj
-$ cd dplm
-$ ls
-277671 dqvcqs.zpb
-$ cd ..
-$ cd ..
-$ cd zlpwdp
-$ ls
-315030 snqcgbs.mlz
-$ cd ..
-$ cd ..
-$ cd tptrlz
-$ ls
-dir jfflz
-154685 qbbpstff.fcs
-dir sjjgljg
-dir zsssqcsb
-$ cd jfflz
-$ ls
-1330 fvldwzn.dbb
-227153 nbb.ztq
-$ cd ..
-$ cd sjjgljg
-$ ls
-295745 frjnfsgt.fmq
-105131 jtbltpv.vhm
-174279 pgqmwn
-104317 sgm
-$ cd ..
-$ cd zsssqcsb
-$ ls
-246361 bnzsv.dqf
-dir ggcvqf
-dir htqpwzw
-249833 jgsqvf.tql
-dir lbtjth
-dir lcfwb
-306768 mmd.gjw
-121112 pgqmwn
-dir sgm
-dir shmvmqv
-dir snqcgbs
-55055 tmw.rqm
-$ cd ggcvqf
-$ ls
-46573 fcwznd
-$ cd ..
-$ cd htqpwzw
-$ ls
-dir bmzvdzsv
-193713 fpp.vwd
-39898 mfjcnl.szn
-65370 msljctr
-10685 ppgzbc.trg
-94843 shmvmqv.hqn
-dir thfdg
-$ cd bmzvdzsv
-$ ls
-74898 pgqmwn.wwh
-$ cd ..
-$ cd thfdg
-$ ls
-dir cpsgcll
-$ cd cpsgcll
-$ ls
-244683 gdfw
-17203 tmw
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd lbtjth
-$ ls
-dir snqcgbs
-$ cd snqcgbs
-$ ls
-122394 grhbhpw.fsl
-55324 jgsqvf.tql
-$ cd ..
-$ cd ..
-$ cd lcfwb
-$ ls
-138053 nvqsqtjw
-$ cd ..
-$ cd sgm
-$ ls
-314313 dqvcqs.zpb
-146274 fftqvs.ltt
-225372 jtq.rzq
-85697 rctzgq.rsr
-dir sgm
-262221 tqpng
-$ cd sgm
-$ ls
-dir cmvvd
-277366 mhs.tpn
-77975 nbb.ztq
-160966 qrwbvbd.ghf
-55949 snqcgbs.qzc
-$ cd cmvvd
-$ ls
-28054 lfsvfsl
-165671 tmw.zwh
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd shmvmqv
-$ ls
-51884 bsbwrjnz.dmt
-231236 jfmsg.mts
-dir qpb
-256063 zhmw
-65512 zrnhr
-$ cd qpb
-$ ls
-228289 dqvcqs.zpb
-$ cd ..
-$ cd ..
-$ cd snqcgbs
-$ ls
-dir mnwgf
-$ cd mnwgf
-$ ls
-178834 qgnwvlfd.cps
-255140 sls.mnw
-9546 tvhbm
-281615 vntrb
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd rsfh
-$ ls
-310413 snqcgbs
-$ cd ..
-$ cd wfwl
-$ ls
-dir fmvg
-129025 jgsqvf.tql
-$ cd fmvg
-$ ls
-276100 nvqsqtjw
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd rwmsqdw
-$ ls
-46554 qzdmgl
-55785 shmvmqv
-127982 tfffrg.sbz
-$ cd ..
-$ cd shmvmqv
-$ ls
-dir ntstz
-dir vprlz
-$ cd ntstz
-$ ls
-304801 nvqsqtjw
-28969 wzfb.fjv
-$ cd ..
-$ cd vprlz
-$ ls
-dir cmmtnt
-dir shmvmqv
-$ cd cmmtnt
-$ ls
-270129 shmvmqv
-$ cd ..
-$ cd shmvmqv
-$ ls
-dir sgm
-$ cd sgm
-$ ls
-287889 hghh.mwt
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd pgqmwn
-$ ls
-85368 qnm
-$ cd ..
-$ cd tmw
-$ ls
-dir fnpjwg
-dir gdt
-dir ggs
-dir llh
-69470 nvqsqtjw
-dir sgm
-$ cd fnpjwg
-$ ls
-161820 dndq.tfl
-dir dwmcs
-205155 tdccsw.qlq
-165352 vvmnpj
-$ cd dwmcs
-$ ls
-121466 dqvcqs.zpb
-274171 qbbqmf.ltf
-$ cd ..
-$ cd ..
-$ cd gdt
-$ ls
-dir cnvtrw
-dir gdcvdsv
-dir hcn
-dir hsmhn
-dir jnhqz
-78446 pgqmwn.mwr
-dir qwfl
-dir snqcgbs
-$ cd cnvtrw
-$ ls
-dir hfvzm
-$ cd hfvzm
-$ ls
-305880 tmw.lvw
-$ cd ..
-$ cd ..
-$ cd gdcvdsv
-$ ls
-69690 jhscd
-$ cd ..
-$ cd hcn
-$ ls
-166775 dqvcqs.zpb
-294325 nvqsqtjw
-$ cd ..
-$ cd hsmhn
-$ ls
-172897 lrjf.dnw
-dir npgr
-225227 pbcmjg.rhf
-234530 pgqmwn.cqb
-dir qlz
-dir snqcgbs
-52808 tnntq.wjt
-$ cd npgr
-$ ls
-141280 qnm
-64422 rwv
-$ cd ..
-$ cd qlz
-$ ls
-258070 nbb.ztq
-$ cd ..
-$ cd snqcgbs
-$ ls
-3723 frcr.jmn
-109486 sgm.nsw
-114054 shmvmqv.frr
-142024 snqcgbs
-$ cd ..
-$ cd ..
-$ cd jnhqz
-$ ls
-dir gpztwnqm
-dir nwpqbf
-dir sgm
-dir tmw
-$ cd gpztwnqm
-$ ls
-303103 bjbpj
-281422 hgp
-284044 jgsqvf.tql
-dir qzts
-133248 sgm
-$ cd qzts
-$ ls
-2428 dqvcqs.zpb
-283206 hzs.smg
-dir lmlw
-$ cd lmlw
-$ ls
-dir sjrfmpc
-$ cd sjrfmpc
-$ ls
-164708 nbb.ztq
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd nwpqbf
-$ ls
-192033 dqvcqs.zpb
-298220 jqd.bfh
-dir mhtsg
-100921 snqcgbs
-dir zbtb
-$ cd mhtsg
-$ ls
-140813 cgcn.rjn
-$ cd ..
-$ cd zbtb
-$ ls
-201213 gjglrmf.dzv
-dir grbl
-81636 pgqmwn.zfm
-265992 pwhbflzn.sch
-dir twjrlzpj
-$ cd grbl
-$ ls
-82894 jgsqvf.tql
-$ cd ..
-$ cd twjrlzpj
-$ ls
-304952 cwhtqv.zvh
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd sgm
-$ ls
-56329 ftfvfpz.srv
-3875 nbb.ztq
-4766 shmvmqv.fdt
-247272 vbw.hsv
-$ cd ..
-$ cd tmw
-$ ls
-dir ddbvd
-$ cd ddbvd
-$ ls
-83200 tnrwdc.dzm
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd qwfl
-$ ls
-dir bcfnz
-23440 nvqsqtjw
-dir pwb
-206984 shmvmqv.fjb
-35453 snqcgbs
-297136 snqcgbs.fnr
-dir tmw
-181689 wcbdwwq
-$ cd bcfnz
-$ ls
-dir fnrclwn
-dir fslh
-258656 gtbhdpt.pth
-238261 psbsmvpf.lmt
-dir sgm
-$ cd fnrclwn
-$ ls
-30297 crhjfzlp.gtb
-297557 gvvnbmt.spr
-189301 nvqsqtjw
-45159 sndmlvw.lsb
-259295 sqd
-$ cd ..
-$ cd fslh
-$ ls
-246662 bpvcj.hnf
-$ cd ..
-$ cd sgm
-$ ls
-dir jpr
-dir tmw
-dir wscvtrd
-$ cd jpr
-$ ls
-49005 dqvcqs.zpb
-$ cd ..
-$ cd tmw
-$ ls
-201387 sgm
-$ cd ..
-$ cd wscvtrd
-$ ls
-77175 blczlqf.pnv
-207393 shmvmqv.qbs
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd pwb
-$ ls
-89451 bqcmzzf
-207548 gfwgnft.php
-dir gsn
-dir jtvpnvz
-144792 nbb.ztq
-dir nzzqj
-214209 pgqmwn.sjv
-236845 pzvjqqvz
-dir sgm
-dir snqcgbs
-dir vfvttj
-$ cd gsn
-$ ls
-93490 snqcgbs.fbv
-$ cd ..
-$ cd jtvpnvz
-$ ls
-dir fdnvff
-208857 gpvwzhd
-229559 rnc
-225519 snqcgbs
-162969 tmw
-$ cd fdnvff
-$ ls
-286944 dztqqtf.nmp
-dir rwc
-181737 snqcgbs
-$ cd rwc
-$ ls
-115290 nbb.ztq
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd nzzqj
-$ ls
-154210 jgsqvf.tql
-dir sgm
-182438 snqcgbs.wpg
-dir zpvghr
-$ cd sgm
-$ ls
-123163 rjgc.ccm
-dir rqn
-291622 tflv.pqc
-$ cd rqn
-$ ls
-220655 rtbrwmjn.clj
-$ cd ..
-$ cd ..
-$ cd zpvghr
-$ ls
-288859 dqvcqs.zpb
-218036 hfdcrjp
-$ cd ..
-$ cd ..
-$ cd sgm
-$ ls
-107183 sgm.nsf
-225832 sjwn
-dir tgf
-$ cd tgf
-$ ls
-258766 nvqsqtjw
-$ cd ..
-$ cd ..
-$ cd snqcgbs
-$ ls
-56144 whjpg.ffz
-$ cd ..
-$ cd vfvttj
-$ ls
-dir ptmggmsl
-$ cd ptmggmsl
-$ ls
-dir psd
-dir wdzptvjc
-$ cd psd
-$ ls
-121637 dqvcqs.zpb
-$ cd ..
-$ cd wdzptvjc
-$ ls
-dir shmvmqv
-$ cd shmvmqv
-$ ls
-23754 dqmrj.fhh
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd tmw
-$ ls
-17390 hqz
-dir jnsb
-31072 nvqsqtjw
-dir tmw
-144511 vvwjcqr.rtz
-$ cd jnsb
-$ ls
-265907 snqcgbs.swh
-$ cd ..
-$ cd tmw
-$ ls
-dir gfncpvw
-$ cd gfncpvw
-$ ls
-dir ctvwgtlh
-$ cd ctvwgtlh
-$ ls
-29825 ccjvs.qqq
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd snqcgbs
-$ ls
-230355 ccl.ddg
-dir csfdmhmb
-dir drpgbvzf
-313060 hhcpw.nbs
-dir pfpn
-dir ptwnpdnc
-273250 qfsnmbm
-dir shmvmqv
-244767 tmw.zjg
-$ cd csfdmhmb
-$ ls
-50690 nbb.ztq
-282078 vzrw
-$ cd ..
-$ cd drpgbvzf
-$ ls
-dir bhwvqf
-803 dqvcqs.zpb
-49859 hhw.gpd
-180202 nbb.ztq
-dir nfh
-64808 pgqmwn
-276746 qnm
-dir shmvmqv
-dir tmw
-$ cd bhwvqf
-$ ls
-76667 qcgpdwm.sbs
-$ cd ..
-$ cd nfh
-$ ls
-23774 jgsqvf.tql
-34652 pnp.lvp
-120264 zvp
-$ cd ..
-$ cd shmvmqv
-$ ls
-47748 cswm.dsr
-dir pgqmwn
-$ cd pgqmwn
-$ ls
-109587 qnm
-$ cd ..
-$ cd ..
-$ cd tmw
-$ ls
-105578 snqcgbs
-$ cd ..
-$ cd ..
-$ cd pfpn
-$ ls
-194628 wgc
-$ cd ..
-$ cd ptwnpdnc
-$ ls
-142456 rvwtfvr.tsc
-$ cd ..
-$ cd shmvmqv
-$ ls
-118642 hgqlrt.btl
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd ggs
-$ ls
-231223 hmtp.djc
-$ cd ..
-$ cd llh
-$ ls
-dir hbq
-dir svt
-$ cd hbq
-$ ls
-157243 fhpsb
-36981 rdbqnbfr.cwz
-282257 tmw.wwv
-$ cd ..
-$ cd svt
-$ ls
-161395 sgm.hdl
-$ cd ..
-$ cd ..
-$ cd sgm
-$ ls
-247276 fss
-dir pgqmwn
-68084 pgqmwn.vfl
-28475 sgm.swb
-dir shmvmqv
-223438 snqcgbs.bng
-$ cd pgqmwn
-$ ls
-134640 dqvcqs.zpb
-dir nrdd
-25431 nvqsqtjw
-149751 qhzqw
-dir vfmcjhwz
-dir zlfhr
-$ cd nrdd
-$ ls
-dir pgqmwn
-$ cd pgqmwn
-$ ls
-57090 nfbd
-$ cd ..
-$ cd ..
-$ cd vfmcjhwz
-$ ls
-24256 fdzfwfh.rcv
-$ cd ..
-$ cd zlfhr
-$ ls
-20504 fgbpndj.wgm
-181769 qnm
-$ cd ..
-$ cd ..
-$ cd shmvmqv
-$ ls
-208988 nbb.ztq
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd vtm
-$ ls
-dir lqvjm
-dir msmtcnsj
-dir qmtgdn
-dir tmw
-$ cd lqvjm
-$ ls
-239772 hnj.zqf
-$ cd ..
-$ cd msmtcnsj
-$ ls
-48711 clfl.fsl
-245929 ddh.gdq
-dir fvlb
-241040 nvqsqtjw
-dir shmvmqv
-305567 vdzzqpz.jfs
-$ cd fvlb
-$ ls
-25669 ddz.tbc
-$ cd ..
-$ cd shmvmqv
-$ ls
-283905 nvqsqtjw
-$ cd ..
-$ cd ..
-$ cd qmtgdn
-$ ls
-246479 pgqmwn
-35386 rtf.cdp
-217551 sgm.mrz
-$ cd ..
-$ cd tmw
-$ ls
-dir qfggmdvd
-dir tlv
-dir tmw
-$ cd qfggmdvd
-$ ls
-288091 djwfq.wzc
-37383 pwnzdj
-214119 shmvmqv.wlg
-29747 tmw.ntw
-146556 zgbd
-$ cd ..
-$ cd tlv
-$ ls
-142924 grj.qhw
-210672 qhmn
-209554 zbcqcb.mhn
-141215 zjmrgw.wlc
-$ cd ..
-$ cd tmw
-$ ls
-dir fwsgn
-dir tmw
-$ cd fwsgn
-$ ls
-dir qbbhrst
-306142 sgm
-$ cd qbbhrst
-$ ls
-dir sgm
-dir srbn
-$ cd sgm
-$ ls
-80992 bbvqrcf.chp
-$ cd ..
-$ cd srbn
-$ ls
-161382 nvqsqtjw
-$ cd ..
-$ cd ..
-$ cd ..
-$ cd tmw
-$ ls
-219508 dqvcqs.zpb
-dir tmw
-134434 wbvvgqwn.bmh
-$ cd tmw
-$ ls
-209116 pgqmwn
-""";
+    /**
+     * Keeps the tree and its size index between runs, so appended log lines only touch the
+     * directories they are in and their ancestors.
+     */
+    static class Fold implements IncrementalFold {
+
+        private DynamicSizeIndex index = new DynamicSizeIndex();
+        private DirectoryTree tree = new DirectoryTree(index);
+
+        @Override
+        public void accept(String line) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            tree.accept(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public String part1() {
+            return String.valueOf(index.sumAtMost(100000L));
+        }
+
+        @Override
+        public String part2() {
+            long spaceToFree = 30000000 - (70000000-index.largest());
+            return String.valueOf(index.smallestAtLeast(spaceToFree));
+        }
+
+        @Override
+        public void save(DataOutput out) throws IOException {
+            tree.save(out);
+        }
+
+        @Override
+        public void load(DataInput in) throws IOException {
+            index = new DynamicSizeIndex();
+            tree = DirectoryTree.load(in, index);
+        }
+    }
 
 }
@@ -1,10 +1,9 @@
 package aoc;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * <a href="https://adventofcode.com/2022/day/8>Day 8: Treetop Tree House</a>
@@ -21,136 +20,462 @@ public class Day8 implements Solution {
         return String.valueOf(part2Impl(input));
     }
 
-    private static int part1Impl(String s) {
-        //System.out.println("s.length(): " + s.length()); 9900
-        List<String> lines = s.lines().collect(Collectors.toList());
-        int R = lines.size();
-        int C = lines.get(0).length();
-        boolean [][] visible = new boolean[R][C];
-
-        for(int r = 0; r < R; r++) {
-            // from left to right
-            int maxSoFar = -1;
-            for (int c = 0; c < C; c++) {
-                int height = lines.get(r).charAt(c) - '0';
-                if (height > maxSoFar) {
-                    maxSoFar = height;
-                    visible[r][c] = true;
+    /**
+     * The tree heights row after row, one byte per tree.
+     */
+    record Forest(byte[] heights, int rows, int cols) {
+
+        static Forest of(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+            byte[] heights = new byte[bytes.length];
+            int size = 0;
+            int rows = 0;
+            int cols = -1;
+            int lineStart = 0;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i == bytes.length || bytes[i] == '\n') {
+                    int lineLength = size - lineStart;
+                    if (lineLength > 0) {
+                        if (cols == -1) {
+                            cols = lineLength;
+                        } else if (lineLength != cols) {
+                            throw new IllegalStateException("row " + rows + " has " + lineLength + " trees instead of " + cols);
+                        }
+                        rows++;
+                    }
+                    lineStart = size;
+                } else if (bytes[i] >= '0' && bytes[i] <= '9') {
+                    heights[size++] = (byte) (bytes[i] - '0');
+                } else if (bytes[i] != '\r') {
+                    throw new IllegalStateException("not a tree height: " + (char) bytes[i]);
                 }
             }
+            return new Forest(Arrays.copyOf(heights, size), rows, Math.max(cols, 0));
+        }
+
+        int height(int r, int c) {
+            return heights[r * cols + c];
+        }
+    }
 
+    private static final int MAX_HEIGHT = 9;
+    // heights are 0 to 9 and the stacks hold strictly decreasing heights
+    private static final int STACK_SIZE = MAX_HEIGHT + 1;
+    // columns are swept this many at a time, so each row of a tile is one cache line
+    private static final int TILE = 64;
+
+    /**
+     * Viewing distances from monotonic stacks: walking along a line, the stack holds the trees
+     * that could still block the view of a later tree, strictly decreasing in height. A tree
+     * pops everything shorter than itself, the one left on top is what blocks its view. Equal
+     * trees are popped after that, since this tree is in front of them from then on.
+     *
+     * Everything is done in tiles of TILE columns, so the sweeps move through memory row by row
+     * and only a tile's worth of distances is kept. Each row keeps its left to right stack from
+     * one tile to the next. Right to left a tile starts with an empty stack, and a tree nothing in
+     * the tile blocks looks up the first tree at least as tall past the tile, from a pointer per
+     * row and height that only ever moves right. Columns use one stack per column of the tile.
+     */
+    static long bestScenicScore(Forest forest) {
+        byte[] heights = forest.heights;
+        int rows = forest.rows;
+        int cols = forest.cols;
+
+        int[] rowStacks = new int[rows * STACK_SIZE];
+        int[] rowDepths = new int[rows];
+        // first column at or past the current tile with a tree at least this tall, per row and height
+        int[] nextAtLeast = new int[rows * STACK_SIZE];
+        int[] stack = new int[STACK_SIZE];
+        // left times right is at most ((cols-1)/2)^2, which fits an int for any sensible forest
+        int[] horizontal = new int[rows * TILE];
+
+        long best = 0;
+        int[][] stacks = new int[TILE][STACK_SIZE];
+        int[] depths = new int[TILE];
+        int[] up = new int[rows * TILE];
+        for (int tileStart = 0; tileStart < cols; tileStart += TILE) {
+            int width = Math.min(TILE, cols - tileStart);
+            int tileEnd = tileStart + width;
+
+            for (int r = 0; r < rows; r++) {
+                int rowStart = r * cols;
+                int stackStart = r * STACK_SIZE;
+                int depth = rowDepths[r];
+                for (int c = tileStart; c < tileEnd; c++) {
+                    int height = heights[rowStart + c];
+                    while (depth > 0 && heights[rowStart + rowStacks[stackStart + depth - 1]] < height) {
+                        depth--;
+                    }
+                    horizontal[r * TILE + c - tileStart] = depth == 0 ? c : c - rowStacks[stackStart + depth - 1];
+                    while (depth > 0 && heights[rowStart + rowStacks[stackStart + depth - 1]] == height) {
+                        depth--;
+                    }
+                    rowStacks[stackStart + depth++] = c;
+                }
+                rowDepths[r] = depth;
 
-            // from right to left
-            maxSoFar = -1;
-            for (int c = C-1; c >= 0; c--) {
-                int height = lines.get(r).charAt(c) - '0';
-                if (height > maxSoFar) {
-                    maxSoFar = height;
-                    visible[r][c] = true;
+                depth = 0;
+                for (int c = tileEnd - 1; c >= tileStart; c--) {
+                    int height = heights[rowStart + c];
+                    while (depth > 0 && heights[rowStart + stack[depth - 1]] < height) {
+                        depth--;
+                    }
+                    int right;
+                    if (depth > 0) {
+                        right = stack[depth - 1] - c;
+                    } else {
+                        int next = nextAtLeast[stackStart + height];
+                        if (next < tileEnd) {
+                            next = tileEnd;
+                            while (next < cols && heights[rowStart + next] < height) {
+                                next++;
+                            }
+                            nextAtLeast[stackStart + height] = next;
+                        }
+                        right = next == cols ? cols - 1 - c : next - c;
+                    }
+                    horizontal[r * TILE + c - tileStart] *= right;
+                    while (depth > 0 && heights[rowStart + stack[depth - 1]] == height) {
+                        depth--;
+                    }
+                    stack[depth++] = c;
                 }
             }
-        }
 
-        for(int c = 0; c < C; c++) {
-            // from top to bottom
-            int maxSoFar = -1;
-            for (int r = 0; r < R; r++) {
-                int height = lines.get(r).charAt(c) - '0';
-                if (height > maxSoFar) {
-                    maxSoFar = height;
-                    visible[r][c] = true;
+            Arrays.fill(depths, 0);
+            for (int r = 0; r < rows; r++) {
+                for (int t = 0; t < width; t++) {
+                    int c = tileStart + t;
+                    int height = heights[r * cols + c];
+                    int[] columnStack = stacks[t];
+                    int depth = depths[t];
+                    while (depth > 0 && heights[columnStack[depth - 1] * cols + c] < height) {
+                        depth--;
+                    }
+                    up[r * TILE + t] = depth == 0 ? r : r - columnStack[depth - 1];
+                    while (depth > 0 && heights[columnStack[depth - 1] * cols + c] == height) {
+                        depth--;
+                    }
+                    columnStack[depth++] = r;
+                    depths[t] = depth;
                 }
             }
 
+            Arrays.fill(depths, 0);
+            for (int r = rows - 1; r >= 0; r--) {
+                for (int t = 0; t < width; t++) {
+                    int c = tileStart + t;
+                    int height = heights[r * cols + c];
+                    int[] columnStack = stacks[t];
+                    int depth = depths[t];
+                    while (depth > 0 && heights[columnStack[depth - 1] * cols + c] < height) {
+                        depth--;
+                    }
+                    int down = depth == 0 ? rows - 1 - r : columnStack[depth - 1] - r;
+                    while (depth > 0 && heights[columnStack[depth - 1] * cols + c] == height) {
+                        depth--;
+                    }
+                    columnStack[depth++] = r;
+                    depths[t] = depth;
 
-            // from bottom to top
-            maxSoFar = -1;
-            for (int r = R-1; r >= 0; r--) {
-                int height = lines.get(r).charAt(c) - '0';
-                if (height > maxSoFar) {
-                    maxSoFar = height;
-                    visible[r][c] = true;
+                    long score = (long) horizontal[r * TILE + t] * up[r * TILE + t] * down;
+                    if (score > best) {
+                        best = score;
+                    }
                 }
             }
         }
+        return best;
+    }
 
+    /**
+     * Which trees can be seen from outside the forest, a bit per tree. Every row starts on a new
+     * long, so a row, or a 64-column tile of one row, is a whole number of longs and threads
+     * sweeping different rows or tiles never write the same long.
+     *
+     * Rows are swept both ways in parallel, then columns both ways, one TILE wide tile per task,
+     * keeping the tallest tree so far for each column of the tile.
+     */
+    static long[] visibility(Forest forest) {
+        byte[] heights = forest.heights;
+        int rows = forest.rows;
+        int cols = forest.cols;
+        int wordsPerRow = (cols + TILE - 1) / TILE;
+        long[] visible = new long[rows * wordsPerRow];
 
-        int visibleCount = 0;
-        for (boolean[] arr : visible) {
-            for (boolean b : arr) {
-                if (b) {
-                    visibleCount++;
+        range(rows, forest).forEach(r -> {
+            int rowStart = r * cols;
+            int wordStart = r * wordsPerRow;
+            int tallest = -1;
+            for (int c = 0; c < cols && tallest < MAX_HEIGHT; c++) {
+                if (heights[rowStart + c] > tallest) {
+                    tallest = heights[rowStart + c];
+                    visible[wordStart + c / TILE] |= 1L << (c % TILE);
                 }
             }
-        }
-        return visibleCount;
-    }
+            tallest = -1;
+            for (int c = cols - 1; c >= 0 && tallest < MAX_HEIGHT; c--) {
+                if (heights[rowStart + c] > tallest) {
+                    tallest = heights[rowStart + c];
+                    visible[wordStart + c / TILE] |= 1L << (c % TILE);
+                }
+            }
+        });
 
-    private static long part2Impl(String s) {
-        List<String> lines = s.lines().collect(Collectors.toList());
-        int R = lines.size();
-        int C = lines.get(0).length();
-        boolean [][] visible = new boolean[R][C];
-
-        long maxScore = 0;
-        for(int r = 0; r < R; r++) {
-            for (int c = 0; c < C; c++) {
-                long score = 1;
-
-                // to the left
-                int treeCount = 0;
-                int currentHeight = lines.get(r).charAt(c) - '0';
-                for (int i = c - 1; i >= 0; i--) {
-                    treeCount++;
-                    if (currentHeight <= lines.get(r).charAt(i) - '0') {
-                        break;
+        range(wordsPerRow, forest).forEach(tile -> {
+            int tileStart = tile * TILE;
+            int width = Math.min(TILE, cols - tileStart);
+            int[] tallest = new int[TILE];
+
+            Arrays.fill(tallest, -1);
+            for (int r = 0; r < rows; r++) {
+                long bits = 0;
+                for (int t = 0; t < width; t++) {
+                    int height = heights[r * cols + tileStart + t];
+                    if (height > tallest[t]) {
+                        tallest[t] = height;
+                        bits |= 1L << t;
                     }
                 }
-                score = score * treeCount;
-
-                // to the right
-                treeCount = 0;
-                currentHeight = lines.get(r).charAt(c) - '0';
-                for (int i = c + 1; i < C; i++) {
-                    treeCount++;
-                    if (currentHeight <= lines.get(r).charAt(i) - '0') {
-                        break;
+                visible[r * wordsPerRow + tile] |= bits;
+            }
+
+            Arrays.fill(tallest, -1);
+            for (int r = rows - 1; r >= 0; r--) {
+                long bits = 0;
+                for (int t = 0; t < width; t++) {
+                    int height = heights[r * cols + tileStart + t];
+                    if (height > tallest[t]) {
+                        tallest[t] = height;
+                        bits |= 1L << t;
                     }
                 }
-                score = score * treeCount;
-
-                // up
-                treeCount = 0;
-                currentHeight = lines.get(r).charAt(c) - '0';
-                for (int i = r - 1; i >= 0; i--) {
-                    treeCount++;
-                    if (currentHeight <= lines.get(i).charAt(c) - '0') {
-                        break;
-                    }
+                visible[r * wordsPerRow + tile] |= bits;
+            }
+        });
+
+        return visible;
+    }
+
+    private static IntStream range(int n, Forest forest) {
+        IntStream range = IntStream.range(0, n);
+        return forest.heights.length < Chunking.PARALLEL_THRESHOLD ? range : range.parallel();
+    }
+
+    static long countVisible(Forest forest) {
+        long[] visible = visibility(forest);
+        LongStream words = Arrays.stream(visible);
+        if (visible.length >= Chunking.PARALLEL_THRESHOLD / TILE) {
+            words = words.parallel();
+        }
+        return words.map(Long::bitCount).sum();
+    }
+
+    /**
+     * Maximum over ranges of a fixed number of values that can be changed one at a time, plus
+     * searches for the nearest value at least some height. The leaves are padded to a power of
+     * two and node 1 covers all of them.
+     */
+    static final class MaxTree {
+
+        private final int leaves;
+        private final long[] tree;
+
+        MaxTree(int n) {
+            int leaves = 1;
+            while (leaves < n) {
+                leaves *= 2;
+            }
+            this.leaves = leaves;
+            this.tree = new long[2 * leaves];
+            Arrays.fill(tree, Long.MIN_VALUE);
+        }
+
+        void set(int i, long value) {
+            int node = leaves + i;
+            tree[node] = value;
+            for (node /= 2; node >= 1; node /= 2) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        /**
+         * @return the maximum of [from, to), Long.MIN_VALUE if the range is empty
+         */
+        long max(int from, int to) {
+            long max = Long.MIN_VALUE;
+            for (int lo = from + leaves, hi = to + leaves; lo < hi; lo /= 2, hi /= 2) {
+                if ((lo & 1) == 1) {
+                    max = Math.max(max, tree[lo++]);
                 }
-                score = score * treeCount;
-
-                // down
-                treeCount = 0;
-                currentHeight = lines.get(r).charAt(c) - '0';
-                for (int i = r + 1; i < R; i++) {
-                    treeCount++;
-                    if (currentHeight <= lines.get(i).charAt(c) - '0') {
-                        break;
-                    }
+                if ((hi & 1) == 1) {
+                    max = Math.max(max, tree[--hi]);
                 }
-                score = score * treeCount;
+            }
+            return max;
+        }
+
+        long max() {
+            return tree[1];
+        }
+
+        /**
+         * @return the largest index before before whose value is at least value, -1 if none is
+         */
+        int lastAtLeast(int before, long value) {
+            return lastAtLeast(1, 0, leaves, before, value);
+        }
+
+        private int lastAtLeast(int node, int nodeFrom, int nodeTo, int before, long value) {
+            if (nodeFrom >= before || tree[node] < value) {
+                return -1;
+            }
+            if (nodeTo - nodeFrom == 1) {
+                return nodeFrom;
+            }
+            int middle = (nodeFrom + nodeTo) / 2;
+            int found = lastAtLeast(2 * node + 1, middle, nodeTo, before, value);
+            return found >= 0 ? found : lastAtLeast(2 * node, nodeFrom, middle, before, value);
+        }
 
+        /**
+         * @return the smallest index after after whose value is at least value, -1 if none is
+         */
+        int firstAtLeast(int after, long value) {
+            return firstAtLeast(1, 0, leaves, after, value);
+        }
+
+        private int firstAtLeast(int node, int nodeFrom, int nodeTo, int after, long value) {
+            if (nodeTo <= after + 1 || tree[node] < value) {
+                return -1;
+            }
+            if (nodeTo - nodeFrom == 1) {
+                return nodeFrom;
+            }
+            int middle = (nodeFrom + nodeTo) / 2;
+            int found = firstAtLeast(2 * node, nodeFrom, middle, after, value);
+            return found >= 0 ? found : firstAtLeast(2 * node + 1, middle, nodeTo, after, value);
+        }
+    }
 
-                if (score > maxScore) {
-                    maxScore = score;
+    /**
+     * A forest where single trees can change height, for what-ifs.
+     *
+     * Every row and every column has a MaxTree of its heights. Whether a tree is visible is then
+     * four range maxima, and how far it sees in a direction is the nearest tree at least as tall,
+     * one search down a MaxTree. A tree's visibility and score only depend on its own row and
+     * column, so setHeight redoes just those R+C-1 trees, each in O(log). The best score is the
+     * top of a MaxTree over the scores of all trees.
+     *
+     * That is a lot of longs per tree: the row and column trees and the score tree each pad to a
+     * power of two and double it, so a 10k by 10k forest needs several GB. Meant for what-ifs on
+     * puzzle sized forests, use {@link #countVisible} and {@link #bestScenicScore} for big ones.
+     */
+    static final class DynamicForest {
+
+        private final int rows;
+        private final int cols;
+        private final byte[] heights;
+        private final MaxTree[] rowTrees;
+        private final MaxTree[] colTrees;
+        private final boolean[] visible;
+        private long visibleCount;
+        private final MaxTree scores;
+
+        DynamicForest(Forest forest) {
+            rows = forest.rows;
+            cols = forest.cols;
+            heights = forest.heights.clone();
+            rowTrees = new MaxTree[rows];
+            colTrees = new MaxTree[cols];
+            for (int r = 0; r < rows; r++) {
+                rowTrees[r] = new MaxTree(cols);
+            }
+            for (int c = 0; c < cols; c++) {
+                colTrees[c] = new MaxTree(rows);
+            }
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    rowTrees[r].set(c, heights[r * cols + c]);
+                    colTrees[c].set(r, heights[r * cols + c]);
                 }
             }
 
+            visible = new boolean[rows * cols];
+            scores = new MaxTree(rows * cols);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    reevaluate(r, c);
+                }
+            }
+        }
+
+        int height(int r, int c) {
+            return heights[r * cols + c];
+        }
+
+        void setHeight(int r, int c, int height) {
+            if (height < 0 || height > MAX_HEIGHT) {
+                throw new IllegalArgumentException("tree height " + height + " is not between 0 and " + MAX_HEIGHT);
+            }
+            heights[r * cols + c] = (byte) height;
+            rowTrees[r].set(c, height);
+            colTrees[c].set(r, height);
+
+            for (int i = 0; i < cols; i++) {
+                reevaluate(r, i);
+            }
+            for (int i = 0; i < rows; i++) {
+                if (i != r) {
+                    reevaluate(i, c);
+                }
+            }
+        }
 
+        private void reevaluate(int r, int c) {
+            boolean nowVisible = isVisible(r, c);
+            if (nowVisible != visible[r * cols + c]) {
+                visible[r * cols + c] = nowVisible;
+                visibleCount += nowVisible ? 1 : -1;
+            }
+            scores.set(r * cols + c, scenicScore(r, c));
         }
 
-        return maxScore;
+        boolean isVisible(int r, int c) {
+            int height = height(r, c);
+            return rowTrees[r].max(0, c) < height
+                || rowTrees[r].max(c + 1, cols) < height
+                || colTrees[c].max(0, r) < height
+                || colTrees[c].max(r + 1, rows) < height;
+        }
+
+        long scenicScore(int r, int c) {
+            int height = height(r, c);
+            int left = rowTrees[r].lastAtLeast(c, height);
+            int right = rowTrees[r].firstAtLeast(c, height);
+            int up = colTrees[c].lastAtLeast(r, height);
+            int down = colTrees[c].firstAtLeast(r, height);
+            return (long) (left < 0 ? c : c - left)
+                * (right < 0 ? cols - 1 - c : right - c)
+                * (up < 0 ? r : r - up)
+                * (down < 0 ? rows - 1 - r : down - r);
+        }
+
+        long visibleCount() {
+            return visibleCount;
+        }
+
+        long bestScenicScore() {
+            return Math.max(0, scores.max());
+        }
+    }
+
+    private static long part1Impl(String s) {
+        return countVisible(Forest.of(s));
+    }
+
+    private static long part2Impl(String s) {
+        return bestScenicScore(Forest.of(s));
     }
 
 }
@@ -1,21 +1,18 @@
 package aoc;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.LongConsumer;
 
 /**
  * <a href="https://adventofcode.com/2022/day/9>Day 9: Rope Bridge</a>
  */
 public class Day9 implements Solution {
 
-    private static final boolean DEBUG = false;
-
     record Instruction(char direction, int numPositions) {
 
     }
@@ -39,48 +36,414 @@ public class Day9 implements Solution {
         return new Instruction(cols[0].charAt(0), Integer.parseInt(cols[1]));
     }
 
-    private static boolean withinOne(
-        Coord head,
-        Coord tail
-    ) {
-        int diffR = head.r - tail.r;
-        int diffC = head.c - tail.c;
+    /**
+     * Cells packed into longs in an open addressing table, so recording a visit doesn't allocate.
+     */
+    static final class CellSet {
+
+        // row Integer.MIN_VALUE, column 0, is never reached by a rope starting at 0,0
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] table = new long[1 << 10];
+        private int size = 0;
+
+        CellSet() {
+            Arrays.fill(table, EMPTY);
+        }
+
+        static long pack(int r, int c) {
+            return ((long) r << 32) | (c & 0xffffffffL);
+        }
+
+        static int row(long cell) {
+            return (int) (cell >> 32);
+        }
+
+        static int col(long cell) {
+            return (int) cell;
+        }
 
-        return -1 <= diffR && diffR <= 1
-            && -1 <= diffC && diffC <= 1;
+        private int slot(long cell) {
+            return (int) ((cell * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(table.length)));
+        }
+
+        boolean add(int r, int c) {
+            return add(pack(r, c));
+        }
+
+        private boolean add(long cell) {
+            int mask = table.length - 1;
+            for (int i = slot(cell); ; i = (i + 1) & mask) {
+                if (table[i] == cell) {
+                    return false;
+                }
+                if (table[i] == EMPTY) {
+                    table[i] = cell;
+                    size++;
+                    if (size * 2 > table.length) {
+                        grow();
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            Arrays.fill(table, EMPTY);
+            size = 0;
+            for (long cell : old) {
+                if (cell != EMPTY) {
+                    add(cell);
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEach(LongConsumer action) {
+            for (long cell : table) {
+                if (cell != EMPTY) {
+                    action.accept(cell);
+                }
+            }
+        }
     }
 
-    private static int manDistance(
-        Coord head,
-        Coord tail) {
+    /**
+     * Runs of cells along one row, or one column, kept as packed (line, from) starts and
+     * (line, to) ends. The union only depends on how many runs start and end at each point, so
+     * sorting the starts and the ends separately and pairing them up again gives the same cells.
+     */
+    static final class Runs {
+
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private int size = 0;
+
+        void add(int line, int from, int to) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = key(line, from);
+            ends[size] = key(line, to);
+            size++;
+        }
+
+        /**
+         * Packed so that sorting the longs sorts by line and then point, negative points too.
+         */
+        private static long key(int line, int point) {
+            return ((long) line << 32) | ((point ^ Integer.MIN_VALUE) & 0xffffffffL);
+        }
+
+        private static int line(long key) {
+            return (int) (key >> 32);
+        }
+
+        private static int point(long key) {
+            return (int) key ^ Integer.MIN_VALUE;
+        }
+
+        /**
+         * @return the union as disjoint runs, sorted by line and then from: lines, froms, tos
+         */
+        int[][] merged() {
+            long[] sortedStarts = Arrays.copyOf(starts, size);
+            long[] sortedEnds = Arrays.copyOf(ends, size);
+            Arrays.sort(sortedStarts);
+            Arrays.sort(sortedEnds);
+
+            int[] lines = new int[size];
+            int[] froms = new int[size];
+            int[] tos = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int line = line(sortedStarts[i]);
+                int from = point(sortedStarts[i]);
+                int to = point(sortedEnds[i]);
+                if (count > 0 && lines[count - 1] == line && from <= tos[count - 1] + 1) {
+                    tos[count - 1] = Math.max(tos[count - 1], to);
+                } else {
+                    lines[count] = line;
+                    froms[count] = from;
+                    tos[count] = to;
+                    count++;
+                }
+            }
+            return new int[][]{Arrays.copyOf(lines, count), Arrays.copyOf(froms, count), Arrays.copyOf(tos, count)};
+        }
+
+        static boolean covers(int[][] merged, int line, int point) {
+            int lo = 0;
+            int hi = merged[0].length;
+            // the last run starting at or before (line, point)
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (merged[0][mid] < line || (merged[0][mid] == line && merged[1][mid] <= point)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo > 0 && merged[0][lo - 1] == line && merged[2][lo - 1] >= point;
+        }
+
+        static long length(int[][] merged) {
+            long length = 0;
+            for (int i = 0; i < merged[0].length; i++) {
+                length += merged[2][i] - merged[1][i] + 1;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * The cells a knot has been on: single cells from stepping, and whole runs from moves that
+     * were fast forwarded.
+     */
+    static final class Visited {
+
+        private final CellSet cells = new CellSet();
+        // by row, columns from to
+        private final Runs horizontal = new Runs();
+        // by column, rows from to
+        private final Runs vertical = new Runs();
+
+        void add(int r, int c) {
+            cells.add(r, c);
+        }
+
+        /**
+         * Adds the length cells after r, c going in direction dr, dc.
+         */
+        void addRun(int r, int c, int dr, int dc, int length) {
+            if (dr == 0) {
+                horizontal.add(r, Math.min(c + dc, c + dc * length), Math.max(c + dc, c + dc * length));
+            } else {
+                vertical.add(c, Math.min(r + dr, r + dr * length), Math.max(r + dr, r + dr * length));
+            }
+        }
+
+        /**
+         * Rows plus columns, less the cells where a row and a column cross, plus the single cells
+         * on neither.
+         */
+        long size() {
+            int[][] rows = horizontal.merged();
+            int[][] cols = vertical.merged();
+            long[] uncovered = {0};
+            cells.forEach(cell -> {
+                int r = CellSet.row(cell);
+                int c = CellSet.col(cell);
+                if (!Runs.covers(rows, r, c) && !Runs.covers(cols, c, r)) {
+                    uncovered[0]++;
+                }
+            });
+            return Runs.length(rows) + Runs.length(cols) - crossings(rows, cols) + uncovered[0];
+        }
+
+        /**
+         * Sweeps left to right over the columns keeping the rows of the horizontal runs under the
+         * sweep in a Fenwick tree, and asks it at every vertical run how many of its rows are
+         * covered there.
+         */
+        private static long crossings(int[][] rows, int[][] cols) {
+            int numRows = rows[0].length;
+            int numCols = cols[0].length;
+            if (numRows == 0 || numCols == 0) {
+                return 0;
+            }
+            int[] distinctRows = Arrays.stream(rows[0]).distinct().toArray();
+
+            // column, then add 0, remove 1, ask 2, then which run
+            long[] events = new long[2 * numRows + numCols];
+            int n = 0;
+            for (int i = 0; i < numRows; i++) {
+                events[n++] = ((long) rows[1][i] << 32) | i;
+                events[n++] = ((long) (rows[2][i] + 1) << 32) | (1L << 30) | i;
+            }
+            for (int i = 0; i < numCols; i++) {
+                events[n++] = ((long) cols[0][i] << 32) | (2L << 30) | i;
+            }
+            Arrays.sort(events);
+
+            long[] fenwick = new long[distinctRows.length + 1];
+            long crossings = 0;
+            for (long event : events) {
+                int type = (int) ((event >>> 30) & 3);
+                int i = (int) (event & ((1 << 30) - 1));
+                if (type == 2) {
+                    crossings += countUpTo(fenwick, upperBound(distinctRows, cols[2][i]))
+                        - countUpTo(fenwick, upperBound(distinctRows, cols[1][i] - 1));
+                } else {
+                    int position = upperBound(distinctRows, rows[0][i]);
+                    for (int j = position; j < fenwick.length; j += j & -j) {
+                        fenwick[j] += type == 0 ? 1 : -1;
+                    }
+                }
+            }
+            return crossings;
+        }
 
-        int diffR = Math.abs(head.r - tail.r);
-        int diffC = Math.abs(head.c - tail.c);
+        /**
+         * @return how many of the sorted values are at most value
+         */
+        private static int upperBound(int[] sorted, int value) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] <= value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
 
-        return diffR + diffC;
+        private static long countUpTo(long[] fenwick, int position) {
+            long count = 0;
+            for (int j = position; j > 0; j -= j & -j) {
+                count += fenwick[j];
+            }
+            return count;
+        }
     }
 
-    private static boolean shouldMoveDiagonal(
-        Coord head,
-        Coord tail) {
-        return manDistance(head, tail) >= 3;
+    /**
+     * The knots as two int arrays, head first, and the cells the tail has been on.
+     *
+     * A knot moves exactly like the tail of a rope that ends at it, so when every knot keeps
+     * its own visited cells one rope of length N answers every length from 2 to N.
+     */
+    static final class Rope {
+
+        // shorter moves aren't worth checking whether the rope is straight
+        private static final int FAST_FORWARD_MIN = 32;
+
+        private final int[] r;
+        private final int[] c;
+        // by knot, null for the knots nobody asked about
+        private final Visited[] visited;
+
+        Rope(int knots) {
+            this(knots, false);
+        }
+
+        Rope(int knots, boolean everyKnot) {
+            r = new int[knots];
+            c = new int[knots];
+            visited = new Visited[knots];
+            for (int knot = everyKnot ? 1 : knots - 1; knot < knots; knot++) {
+                visited[knot] = new Visited();
+                visited[knot].add(0, 0);
+            }
+        }
+
+        void move(Instruction instruction) {
+            int dr = 0;
+            int dc = 0;
+            switch (instruction.direction) {
+                case 'R' -> dc = 1;
+                case 'L' -> dc = -1;
+                case 'U' -> dr = -1;
+                case 'D' -> dr = 1;
+                default -> throw new IllegalStateException("unrecognized direction: " + instruction.direction);
+            }
+            for (int i = 0; i < instruction.numPositions; i++) {
+                r[0] += dr;
+                c[0] += dc;
+                follow();
+                if (Trace.ENABLED) {
+                    printBoardState("=======", r, c);
+                } else {
+                    int remaining = instruction.numPositions - i - 1;
+                    if (remaining >= FAST_FORWARD_MIN && straightBehindHead(dr, dc)) {
+                        fastForward(dr, dc, remaining);
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Once every knot is one step behind the one in front of it, each further step moves
+         * every knot one cell in the same direction.
+         */
+        private boolean straightBehindHead(int dr, int dc) {
+            for (int knot = 1; knot < r.length; knot++) {
+                if (r[knot] != r[knot - 1] - dr || c[knot] != c[knot - 1] - dc) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void fastForward(int dr, int dc, int steps) {
+            for (int knot = 0; knot < r.length; knot++) {
+                if (visited[knot] != null) {
+                    visited[knot].addRun(r[knot], c[knot], dr, dc, steps);
+                }
+                r[knot] += dr * steps;
+                c[knot] += dc * steps;
+            }
+        }
+
+        /**
+         * A knot that is no longer touching the one in front of it takes one step towards it,
+         * diagonally if they aren't in the same row or column.
+         */
+        private void follow() {
+            int tail = r.length - 1;
+            for (int knot = 1; knot <= tail; knot++) {
+                int diffR = r[knot - 1] - r[knot];
+                int diffC = c[knot - 1] - c[knot];
+                if (-1 <= diffR && diffR <= 1 && -1 <= diffC && diffC <= 1) {
+                    return; // no movement for this knot and the rest
+                }
+                r[knot] += Integer.signum(diffR);
+                c[knot] += Integer.signum(diffC);
+                if (visited[knot] != null) {
+                    visited[knot].add(r[knot], c[knot]);
+                }
+            }
+        }
+
+        long tailVisitedCount() {
+            return visited[r.length - 1].size();
+        }
+
+        /**
+         * @return how many cells the tail of a rope of each length has been on, by length
+         */
+        long[] visitedCounts() {
+            long[] counts = new long[r.length + 1];
+            for (int knot = 1; knot < r.length; knot++) {
+                counts[knot + 1] = visited[knot].size();
+            }
+            return counts;
+        }
     }
 
-    private static void printBoardState(List<Coord> knotPositions, int ropeLength) {
+    private static void printBoardState(String label, int[] r, int[] c) {
+        int ropeLength = r.length;
         Map<Coord, Character> toPrint = new HashMap<>();
-        toPrint.put(knotPositions.get(0), 'H');
+        toPrint.put(new Coord(r[0], c[0]), 'H');
         for (int i = 1; i <= ropeLength -2; i++) {
-            toPrint.put(knotPositions.get(i), (char)(i + '0'));
+            toPrint.put(new Coord(r[i], c[i]), (char)(i + '0'));
         }
-        toPrint.put(knotPositions.get(ropeLength-1), 'T');
+        toPrint.put(new Coord(r[ropeLength-1], c[ropeLength-1]), 'T');
         toPrint.put(new Coord(0,0), 's');
-        printMap(toPrint);
+        printMap(label, toPrint);
     }
 
-    private static void printMap(Map<Coord, Character> toPrint) {
-        if (!DEBUG) {
-            return;
-        }
+    private static void printMap(String label, Map<Coord, Character> toPrint) {
         int minR = Integer.MAX_VALUE;
         int minC = Integer.MAX_VALUE;
         int maxR = Integer.MIN_VALUE;
@@ -100,137 +463,56 @@ public class Day9 implements Solution {
             }
         }
 
-        for (int r = minR; r <= maxR; r++) {
-            for(int c = minC; c <= maxC; c++) {
-                Coord coord = new Coord(r,c);
-                if (toPrint.containsKey(coord)) {
-                    System.out.print(toPrint.get(coord));
-                } else {
-                    System.out.print('·');
-                }
-            }
-            System.out.println();
-        }
+        final int originR = minR;
+        final int originC = minC;
+        Trace.frame(label, maxR - minR + 1, maxC - minC + 1,
+            (r, c) -> toPrint.getOrDefault(new Coord(originR + r, originC + c), '.'));
     }
 
-    private static void printVisited(Set<Coord> visited) {
+    private static void printVisited(Visited visited) {
         Map<Coord, Character> toPrint = new HashMap<>();
-        for (Coord coord : visited) {
-            toPrint.put(coord, '#');
-        }
+        // tracing steps every cell, so there are no runs
+        visited.cells.forEach(cell -> toPrint.put(new Coord(CellSet.row(cell), CellSet.col(cell)), '#'));
         toPrint.put(new Coord(0,0), 's');
-        printMap(toPrint);
+        printMap("=======", toPrint);
     }
 
-    private static int simulate(String s, int ropeLength) {
-        List<Coord> knotPositions = new ArrayList<>(10);
-        for (int i = 0; i < ropeLength; i++) {
-            knotPositions.add(new Coord(0,0));
+    private static long simulate(String s, int ropeLength) {
+        Rope rope = new Rope(ropeLength);
+        move(rope, s);
+
+        if (Trace.ENABLED) {
+            printVisited(rope.visited[ropeLength - 1]);
         }
-        Set<Coord> visited = new HashSet<>();
-        visited.add(new Coord(0,0));
 
+        return rope.tailVisitedCount();
+    }
+
+    /**
+     * One pass for every rope length from 2 to maxLength.
+     *
+     * @return how many cells the tail has been on, by rope length
+     */
+    static long[] visitedCounts(String s, int maxLength) {
+        Rope rope = new Rope(maxLength, true);
+        move(rope, s);
+        return rope.visitedCounts();
+    }
+
+    private static void move(Rope rope, String s) {
         Iterator<Instruction> instructions = s.lines()
             .map(Day9::parse)
             .iterator();
         while (instructions.hasNext()) {
             Instruction instruction = instructions.next();
-            if (DEBUG) {
-                System.out.println("===" + instruction + "===");
-            }
-            for(int i = 0; i < instruction.numPositions; i++) {
-                int headR = knotPositions.get(0).r;
-                int headC = knotPositions.get(0).c;
-                // move the head based on the instruction
-                //  * R 4
-                // * U 4
-                // * L 3
-                // * D 1
-                switch (instruction.direction) {
-                    case 'R':
-                        headC++;
-                        break;
-                    case 'L':
-                        headC--;
-                        break;
-                    case 'U':
-                        headR--;
-                        break;
-                    case 'D':
-                        headR++;
-                        break;
-                }
-                knotPositions.set(0, new Coord(headR, headC));
-
-                for(int knot = 1; knot < ropeLength; knot++) {
-                    Coord prev = knotPositions.get(knot-1);
-                    Coord current = knotPositions.get(knot);
-                    if (withinOne(prev, current)) {
-                        break; // no movement for this knot and the rest
-                    }
-
-                    // move the tail to approach the head if necessary
-                    if (shouldMoveDiagonal(prev, current)) {
-                        /*   T1T
-                            T121T
-                              H
-                            T121T
-                             T1T
-                         */
-                        int minDist = Integer.MAX_VALUE;
-                        Coord minDistCoord = null;
-                        int[] vals = {-1, 1};
-                        for (int j : vals) {
-                            for (int k : vals) {
-                                var potentialCoord = new Coord(current.r + j, current.c + k);
-                                var dist = manDistance(prev, potentialCoord);
-                                if (dist < minDist) {
-                                    minDist = dist;
-                                    minDistCoord = potentialCoord;
-                                }
-                            }
-                        }
-                        knotPositions.set(knot, minDistCoord);
-                    } else {
-                        int minDist = Integer.MAX_VALUE;
-                        Coord minDistCoord = null;
-                        List<Coord> potentialCoords = List.of(
-                            new Coord(current.r, current.c + 1), // right
-                            new Coord(current.r, current.c - 1), // left
-                            new Coord(current.r- 1, current.c),  // up
-                            new Coord(current.r + 1, current.c)  // down
-                        );
-                        for (Coord potentialCoord : potentialCoords) {
-                            var dist = manDistance(prev, potentialCoord);
-                            if (dist < minDist) {
-                                minDist = dist;
-                                minDistCoord = potentialCoord;
-                            }
-                        }
-
-
-                        knotPositions.set(knot, minDistCoord);
-                    }
-                }
-                visited.add(new Coord(
-                    knotPositions.get(ropeLength - 1).r,
-                    knotPositions.get(ropeLength - 1).c));
-                printBoardState(knotPositions, ropeLength);
-                if (DEBUG) {
-                    System.out.println("=======");
-                }
+            if (Trace.ENABLED) {
+                Trace.note("===" + instruction + "===");
             }
+            rope.move(instruction);
         }
-
-        if (DEBUG) {
-            System.out.println("=======");
-        }
-        printVisited(visited);
-
-        return visited.size();
     }
 
-    private static int part1Impl(String s) {
+    private static long part1Impl(String s) {
         return simulate(s, 2);
     }
 
@@ -238,4 +520,16 @@ public class Day9 implements Solution {
         return simulate(s, 10);
     }
 
+    /**
+     * Usage: Day9 file [max rope length]
+     */
+    public static void main(String[] args) throws IOException {
+        String input = MappedInput.readString(Path.of(args[0]));
+        int maxLength = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+        long[] counts = visitedCounts(input, maxLength);
+        for (int length = 2; length <= maxLength; length++) {
+            System.out.println(length + ": " + counts[length]);
+        }
+    }
+
 }
@@ -0,0 +1,25 @@
+package aoc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A day whose answers are a fold over its input lines, so lines appended to the input later can
+ * be applied without going over the earlier ones again. See {@link MainIncremental}.
+ */
+public interface IncrementalFold {
+
+    /**
+     * @param line a complete line without its line terminator
+     */
+    void accept(String line);
+
+    String part1();
+
+    String part2();
+
+    void save(DataOutput out) throws IOException;
+
+    void load(DataInput in) throws IOException;
+}
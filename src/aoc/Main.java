@@ -4,10 +4,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import jdk.incubator.concurrent.StructuredTaskScope;
 
 public class Main {
 
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
         var day = Integer.parseInt(args[0]);
         var numOfSamples = 1;
         if (args.length >= 2) {
@@ -21,7 +26,7 @@ public class Main {
                 samples.add(Files.readString(Path.of("input/day_"+day+"_sample" + (i) + ".txt")));
             }
         }
-        var input = Files.readString(Path.of("input/day_"+day+".txt"));
+        var input = MappedInput.readString(Path.of("input/day_"+day+".txt"));
         var samplesPart1Expected = new ArrayList<>();
         if (numOfSamples == 1) {
             samplesPart1Expected.add(Files.readString(Path.of("input/day_"+day+"_sample_part1_expected.txt")));
@@ -47,7 +52,7 @@ public class Main {
             case 4 -> new Day4();
             case 5 -> new Day5();
             case 6 -> new Day6();
-            // run Day7 from Day's main
+            case 7 -> new Day7();
             case 8 -> new Day8();
             case 9 -> new Day9();
             case 10 -> new Day10();
@@ -59,21 +64,38 @@ public class Main {
             default -> throw new IllegalStateException();
         };
 
-        for (int i = 1; i <= numOfSamples; i++) {
-            System.out.println("Sample  " + i);
-            System.out.println("Expected: " + samplesPart1Expected.get(i-1));
-            System.out.println("Actual:   " + solution.part1(samples.get(i-1)));
-        }
-        System.out.println("==============================");
-        System.out.println(solution.part1(input));
-        System.out.println("==============================");
+        // every part of every input is independent so run them all at once and print in order after
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            List<Future<String>> samplesPart1 = new ArrayList<>();
+            for (String sample : samples) {
+                samplesPart1.add(scope.fork(() -> solution.part1(sample)));
+            }
+            Future<String> part1 = scope.fork(() -> solution.part1(input));
+            List<Future<String>> samplesPart2 = new ArrayList<>();
+            for (String sample : samples) {
+                samplesPart2.add(scope.fork(() -> solution.part2(sample)));
+            }
+            Future<String> part2 = scope.fork(() -> solution.part2(input));
+
+            scope.join();
+            scope.throwIfFailed();
+
+            for (int i = 1; i <= numOfSamples; i++) {
+                System.out.println("Sample  " + i);
+                System.out.println("Expected: " + samplesPart1Expected.get(i-1));
+                System.out.println("Actual:   " + samplesPart1.get(i-1).get());
+            }
+            System.out.println("==============================");
+            System.out.println(part1.get());
+            System.out.println("==============================");
 
 
-        for (int i = 1; i <= numOfSamples; i++) {
-            System.out.println("Sample  " + i);
-            System.out.println("Expected: " + samplesPart2Expected.get(i-1));
-            System.out.println("Actual:   " + solution.part2(samples.get(i-1)));
+            for (int i = 1; i <= numOfSamples; i++) {
+                System.out.println("Sample  " + i);
+                System.out.println("Expected: " + samplesPart2Expected.get(i-1));
+                System.out.println("Actual:   " + samplesPart2.get(i-1).get());
+            }
+            System.out.println(part2.get());
         }
-        System.out.println(solution.part2(input));
     }
-}
\ No newline at end of file
+}
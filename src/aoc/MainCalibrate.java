@@ -0,0 +1,43 @@
+package aoc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Measures the variants of a day on its sample and real input, see {@link Variants}.
+ *
+ * Usage: MainCalibrate day [budget seconds]
+ */
+public class MainCalibrate {
+
+    public static void main(String[] args) throws IOException {
+        var day = Integer.parseInt(args[0]);
+        var budget = Duration.ofSeconds(args.length >= 2 ? Integer.parseInt(args[1]) : 10);
+
+        var sample = Files.readString(Path.of("input/day_" + day + "_sample.txt"));
+        var input = Files.readString(Path.of("input/day_" + day + ".txt"));
+
+        switch (day) {
+            case 1 -> Day1.SUM_OF_TOP.calibrate(
+                List.of(
+                    new Day1.FileQuery(Path.of("input/day_1_sample.txt"), 3),
+                    new Day1.FileQuery(Path.of("input/day_1.txt"), 3)),
+                budget);
+            case 5 -> {
+                var inputs = List.of(Day5.parse(sample), Day5.parse(input));
+                Day5.PART1.calibrate(inputs, budget);
+                Day5.PART2.calibrate(inputs, budget);
+            }
+            case 11 -> Day11.PART2.calibrate(
+                List.of(Day11.RoundsQuery.of(sample, 10000), Day11.RoundsQuery.of(input, 10000)),
+                budget);
+            case 15 -> Day15.PART1.calibrate(
+                List.of(Day15.RowQuery.of(sample, 10), Day15.RowQuery.of(input, 2000000)),
+                budget);
+            default -> throw new IllegalArgumentException("Day " + day + " has no variants to calibrate");
+        }
+    }
+}
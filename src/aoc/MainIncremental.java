@@ -0,0 +1,125 @@
+package aoc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the answers for an input file that only ever gets appended to.
+ *
+ * The fold state and how many bytes of the input went into it are saved next to the input, so
+ * each run only reads what was appended since the last one. A trailing line without a newline is
+ * left for the next run since it might still be getting written.
+ *
+ * Usage: MainIncremental day [input file] [follow seconds]
+ */
+public class MainIncremental {
+
+    private static final int STATE_VERSION = 3;
+
+    private static IncrementalFold newFold(int day) {
+        return switch (day) {
+            case 1 -> new Day1.Fold();
+            case 2 -> new Day2.Fold();
+            case 3 -> new Day3.Fold();
+            case 4 -> new Day4.Fold();
+            case 7 -> new Day7.Fold();
+            case 25 -> new Day25.Fold();
+            default -> throw new IllegalArgumentException("Day " + day + " does not support incremental mode");
+        };
+    }
+
+    /**
+     * Feeds the complete lines from offset onwards into the fold.
+     *
+     * @return the offset just after the last newline consumed
+     */
+    private static long catchUp(Path input, long offset, IncrementalFold fold) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            channel.position(offset);
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = offset;
+            long consumed = offset;
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b == '\n') {
+                        String s = line.toString(StandardCharsets.UTF_8);
+                        fold.accept(s.endsWith("\r") ? s.substring(0, s.length() - 1) : s);
+                        line.reset();
+                        consumed = position;
+                    } else {
+                        line.write(b);
+                    }
+                }
+                buffer.clear();
+            }
+            return consumed;
+        }
+    }
+
+    private static long load(Path stateFile, int day, IncrementalFold fold) throws IOException {
+        if (!Files.exists(stateFile)) {
+            return 0;
+        }
+        try (var in = new DataInputStream(Files.newInputStream(stateFile))) {
+            if (in.readInt() != STATE_VERSION || in.readInt() != day) {
+                return 0;
+            }
+            long offset = in.readLong();
+            fold.load(in);
+            return offset;
+        }
+    }
+
+    private static void save(Path stateFile, int day, long offset, IncrementalFold fold) throws IOException {
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeInt(STATE_VERSION);
+            out.writeInt(day);
+            out.writeLong(offset);
+            fold.save(out);
+        }
+        Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var day = Integer.parseInt(args[0]);
+        var input = Path.of(args.length >= 2 ? args[1] : "input/day_" + day + ".txt");
+        var followSeconds = args.length >= 3 ? Integer.parseInt(args[2]) : 0;
+        var stateFile = input.resolveSibling(input.getFileName() + ".day" + day + ".state");
+
+        var fold = newFold(day);
+        var offset = load(stateFile, day, fold);
+        while (true) {
+            if (Files.size(input) < offset) {
+                // the input was replaced rather than appended to, so start over
+                fold = newFold(day);
+                offset = 0;
+            }
+            long newOffset = catchUp(input, offset, fold);
+            if (newOffset != offset) {
+                offset = newOffset;
+                save(stateFile, day, offset, fold);
+            }
+            System.out.println(fold.part1());
+            System.out.println(fold.part2());
+
+            if (followSeconds <= 0) {
+                return;
+            }
+            Thread.sleep(followSeconds * 1000L);
+        }
+    }
+}
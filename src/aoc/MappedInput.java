@@ -0,0 +1,31 @@
+package aoc;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Puzzle inputs read through a memory mapping instead of being copied through a stream buffer.
+ * Nothing is touched until a day asks for its file.
+ */
+public final class MappedInput {
+
+    private MappedInput() {
+    }
+
+    /**
+     * Mappings are limited to 2GB, callers with bigger files need to map it in pieces.
+     */
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public static String readString(Path path) throws IOException {
+        return StandardCharsets.UTF_8.decode(map(path)).toString();
+    }
+}
@@ -0,0 +1,138 @@
+package aoc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Ring buffer of grid snapshots used in place of printing maps while a day runs.
+ *
+ * Enable with -Daoc.trace=true. Since {@link #ENABLED} is a static final the JIT drops any
+ * {@code if (Trace.ENABLED)} block when tracing is off, so callers should guard their calls
+ * with it. When enabled, frames are copied into a buffer allocated once up front and the
+ * oldest frames get overwritten. Nothing is turned into text until {@link #render} is called,
+ * or at exit when -Daoc.trace.file=path is given.
+ *
+ * Other knobs:
+ * -Daoc.trace.frames=64 number of frames kept
+ * -Daoc.trace.frameBytes=65536 max cells per frame, taller frames get their bottom rows cut off
+ */
+public final class Trace {
+
+    public static final boolean ENABLED = Boolean.getBoolean("aoc.trace");
+
+    private static final int CAPACITY = Integer.getInteger("aoc.trace.frames", 64);
+    private static final int FRAME_BYTES = Integer.getInteger("aoc.trace.frameBytes", 1 << 16);
+
+    private static final byte[] cells = ENABLED ? new byte[CAPACITY * FRAME_BYTES] : null;
+    private static final String[] labels = ENABLED ? new String[CAPACITY] : null;
+    private static final int[] heights = ENABLED ? new int[CAPACITY] : null;
+    private static final int[] widths = ENABLED ? new int[CAPACITY] : null;
+    private static final boolean[] truncated = ENABLED ? new boolean[CAPACITY] : null;
+    private static long recorded = 0;
+
+    static {
+        String file = System.getProperty("aoc.trace.file");
+        if (ENABLED && file != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> render(Path.of(file))));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Cells {
+        /**
+         * @return the character to show at row r, column c of the frame (relative to the frame's
+         * top left corner). Only the low byte is kept.
+         */
+        char at(int r, int c);
+    }
+
+    private Trace() {
+    }
+
+    /**
+     * Copies a height x width grid into the next slot of the ring buffer.
+     */
+    public static synchronized void frame(String label, int height, int width, Cells source) {
+        if (!ENABLED) {
+            return;
+        }
+        int slot = (int) (recorded % CAPACITY);
+        int offset = slot * FRAME_BYTES;
+        int keptHeight = width == 0 ? height : Math.min(height, FRAME_BYTES / width);
+        for (int r = 0; r < keptHeight; r++) {
+            for (int c = 0; c < width; c++) {
+                cells[offset++] = (byte) source.at(r, c);
+            }
+        }
+        labels[slot] = label;
+        heights[slot] = keptHeight;
+        widths[slot] = width;
+        truncated[slot] = keptHeight < height;
+        recorded++;
+    }
+
+    /**
+     * A frame without any cells, for marking where a step starts.
+     */
+    public static void note(String label) {
+        frame(label, 0, 0, (r, c) -> ' ');
+    }
+
+    /**
+     * Writes the retained frames, oldest first.
+     */
+    public static synchronized void render(Appendable out) throws IOException {
+        if (!ENABLED) {
+            return;
+        }
+        long first = Math.max(0, recorded - CAPACITY);
+        if (first > 0) {
+            out.append("(").append(String.valueOf(first)).append(" older frames dropped)\n");
+        }
+        for (long i = first; i < recorded; i++) {
+            int slot = (int) (i % CAPACITY);
+            if (labels[slot] != null) {
+                out.append(labels[slot]).append('\n');
+            }
+            int offset = slot * FRAME_BYTES;
+            char[] row = new char[widths[slot]];
+            for (int r = 0; r < heights[slot]; r++) {
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = (char) (cells[offset++] & 0xFF);
+                }
+                out.append(new String(row)).append('\n');
+            }
+            if (truncated[slot]) {
+                out.append("(truncated)\n");
+            }
+        }
+    }
+
+    public static void render(Path file) {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            render(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Convenience for the mains, which used to print their maps directly.
+     */
+    public static void renderToStdout() {
+        try {
+            render(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        clear();
+    }
+
+    public static synchronized void clear() {
+        recorded = 0;
+    }
+}
@@ -0,0 +1,218 @@
+package aoc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Interchangeable implementations of one part of a day, picking whichever is expected to be
+ * fastest for the input at hand.
+ *
+ * Each variant comes with a size feature that its running time should be roughly linear in, e.g.
+ * the number of cells a flood fill visits. {@link #calibrate} times every variant on a few inputs
+ * and fits nanos = fixed + perUnit * feature. The fits are kept in calibration.properties (or
+ * -Daoc.calibration=path) so later runs can select without measuring again. Until a part has been
+ * calibrated the first registered variant is used.
+ *
+ * @param <I> the input of the part
+ * @param <R> the answer
+ */
+public final class Variants<I, R> {
+
+    private static final Path CALIBRATION_FILE = Path.of(System.getProperty("aoc.calibration", "calibration.properties"));
+    private static final int RUNS = 5;
+    // below this a single run is mostly call overhead and says little about the per unit cost
+    private static final long MIN_TRUSTED_NANOS = 1_000_000;
+
+    private static Properties calibration;
+
+    private record Variant<I, R>(String name, ToLongFunction<I> feature, Function<I, R> impl) {
+
+    }
+
+    /**
+     * nanos = fixed + perUnit * feature
+     */
+    private record Model(double fixed, double perUnit) {
+
+        double predict(long feature) {
+            return fixed + perUnit * feature;
+        }
+    }
+
+    private final String key;
+    private final Map<String, Variant<I, R>> variants = new LinkedHashMap<>();
+
+    /**
+     * @param key prefix for this part in calibration.properties, like day15.part1
+     */
+    public Variants(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @param feature called for every variant each time one is selected, so it should only read
+     *                what the input already holds, e.g. a count worked out when the input was made,
+     *                rather than parse it again
+     */
+    public Variants<I, R> register(String name, ToLongFunction<I> feature, Function<I, R> impl) {
+        variants.put(name, new Variant<>(name, feature, impl));
+        return this;
+    }
+
+    public R run(I input) {
+        return variants.get(select(input)).impl.apply(input);
+    }
+
+    /**
+     * @return the name of the variant with the lowest predicted running time
+     */
+    public String select(I input) {
+        Properties properties = calibration();
+        String best = variants.keySet().iterator().next();
+        double bestNanos = Double.MAX_VALUE;
+        for (Variant<I, R> variant : variants.values()) {
+            Model model = readModel(properties, variant.name);
+            if (model == null) {
+                continue;
+            }
+            double nanos = model.predict(variant.feature.applyAsLong(input));
+            if (nanos < bestNanos) {
+                bestNanos = nanos;
+                best = variant.name;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Times every variant on the inputs, from smallest to largest feature, and saves the fitted
+     * models. A variant stops being measured once it is predicted to take longer than budget, so a
+     * quadratic variant does not get stuck on the real input. Variants have to agree on every
+     * input they finish.
+     */
+    public void calibrate(List<I> inputs, Duration budget) {
+        Properties properties = calibration();
+        Map<I, R> answers = new HashMap<>();
+        for (Variant<I, R> variant : variants.values()) {
+            List<I> sorted = new ArrayList<>(inputs);
+            sorted.sort(Comparator.comparingLong(variant.feature));
+
+            List<long[]> points = new ArrayList<>();
+            Model model = null;
+            for (I input : sorted) {
+                long feature = variant.feature.applyAsLong(input);
+                boolean trusted = points.size() >= 2 || (points.size() == 1 && points.get(0)[1] >= MIN_TRUSTED_NANOS);
+                if (trusted && model.predict(feature) > budget.toNanos()) {
+                    System.out.println(key + " " + variant.name + " skipping feature=" + feature
+                        + ", predicted " + Duration.ofNanos((long) model.predict(feature)));
+                    break;
+                }
+                long nanos = time(variant, input, answers);
+                System.out.println(key + " " + variant.name + " feature=" + feature + " took " + Duration.ofNanos(nanos));
+                points.add(new long[]{feature, nanos});
+                model = fit(points);
+            }
+            writeModel(properties, variant.name, model);
+        }
+        save(properties);
+    }
+
+    /**
+     * @param answers what the variants measured before this one answered, so they can be compared
+     */
+    private long time(Variant<I, R> variant, I input, Map<I, R> answers) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long t1 = System.nanoTime();
+            R actual = variant.impl.apply(input);
+            long t2 = System.nanoTime();
+            R expected = answers.putIfAbsent(input, actual);
+            if (expected != null && !expected.equals(actual)) {
+                throw new IllegalStateException(key + " " + variant.name + " answered " + actual + " instead of " + expected);
+            }
+            best = Math.min(best, t2 - t1);
+        }
+        return best;
+    }
+
+    /**
+     * Least squares line through the points. A single point is taken to be all per unit cost.
+     */
+    private static Model fit(List<long[]> points) {
+        if (points.size() == 1) {
+            long[] point = points.get(0);
+            return new Model(0, (double) point[1] / Math.max(1, point[0]));
+        }
+        double n = points.size();
+        double sumX = 0;
+        double sumY = 0;
+        double sumXX = 0;
+        double sumXY = 0;
+        for (long[] point : points) {
+            sumX += point[0];
+            sumY += point[1];
+            sumXX += (double) point[0] * point[0];
+            sumXY += (double) point[0] * point[1];
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        if (denominator == 0) {
+            return new Model(sumY / n, 0);
+        }
+        double perUnit = Math.max(0, (n * sumXY - sumX * sumY) / denominator);
+        double fixed = Math.max(0, (sumY - perUnit * sumX) / n);
+        return new Model(fixed, perUnit);
+    }
+
+    private Model readModel(Properties properties, String name) {
+        String fixed = properties.getProperty(key + "." + name + ".fixed");
+        String perUnit = properties.getProperty(key + "." + name + ".perUnit");
+        if (fixed == null || perUnit == null) {
+            return null;
+        }
+        return new Model(Double.parseDouble(fixed), Double.parseDouble(perUnit));
+    }
+
+    private void writeModel(Properties properties, String name, Model model) {
+        if (model == null) {
+            return;
+        }
+        properties.setProperty(key + "." + name + ".fixed", String.valueOf(model.fixed));
+        properties.setProperty(key + "." + name + ".perUnit", String.valueOf(model.perUnit));
+    }
+
+    private static synchronized Properties calibration() {
+        if (calibration == null) {
+            calibration = new Properties();
+            if (Files.exists(CALIBRATION_FILE)) {
+                try (InputStream in = Files.newInputStream(CALIBRATION_FILE)) {
+                    calibration.load(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return calibration;
+    }
+
+    private static synchronized void save(Properties properties) {
+        try (OutputStream out = Files.newOutputStream(CALIBRATION_FILE)) {
+            properties.store(out, "nanos = fixed + perUnit * feature, see aoc.Variants");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package aoc;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+public class Day4Test {
+
+    @Test
+    public void sample() throws Exception {
+        String sampleInput = Files.readString(java.nio.file.Path.of("input/day_4_sample.txt"));
+        Day4.AssignmentIndex index = Day4.AssignmentIndex.of(sampleInput);
+        assertEquals(2, index.part1());
+        assertEquals(4, index.part2());
+        assertArrayEquals(
+            new int[]{0, 0, 4, 5, 7, 7, 8, 6, 4, 1, 0},
+            index.coverCounts(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), index.pairsOverlappingOtherPairs());
+    }
+
+    @Test
+    public void pairsOverlappingOtherPairs() {
+        Day4.AssignmentIndex index = Day4.AssignmentIndex.of("1-2,3-4\n10-12,11-11\n3-3,20-20\n");
+        // the second pair overlaps itself, but no other pair
+        assertEquals(List.of(0, 2), index.pairsOverlappingOtherPairs());
+        assertArrayEquals(new int[]{2, 0, 2}, index.coverCounts(new int[]{3, 5, 11}));
+    }
+}
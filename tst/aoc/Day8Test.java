@@ -0,0 +1,113 @@
+package aoc;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Day8Test {
+
+    @Test
+    public void dynamicForestMatchesRecomputing() {
+        Random random = new Random(8);
+        for (int forestNumber = 0; forestNumber < 100; forestNumber++) {
+            int rows = 1 + random.nextInt(20);
+            int cols = 1 + random.nextInt(20);
+            StringBuilder input = new StringBuilder();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    input.append(random.nextInt(10));
+                }
+                input.append('\n');
+            }
+
+            Day8.Forest forest = Day8.Forest.of(input.toString());
+            Day8.DynamicForest dynamicForest = new Day8.DynamicForest(forest);
+            for (int update = 0; update < 30; update++) {
+                int r = random.nextInt(rows);
+                int c = random.nextInt(cols);
+                int height = random.nextInt(10);
+                dynamicForest.setHeight(r, c, height);
+
+                byte[] heights = forest.heights().clone();
+                heights[r * cols + c] = (byte) height;
+                forest = new Day8.Forest(heights, rows, cols);
+                assertEquals(Day8.countVisible(forest), dynamicForest.visibleCount());
+                assertEquals(Day8.bestScenicScore(forest), dynamicForest.bestScenicScore());
+            }
+        }
+    }
+
+    @Test
+    public void forestsWiderThanATileMatchBruteForce() {
+        Random random = new Random(64);
+        int[][] shapes = {{3, 130}, {130, 3}, {1, 200}, {7, 300}, {70, 129}};
+        for (int[] shape : shapes) {
+            int rows = shape[0];
+            int cols = shape[1];
+            for (int forestNumber = 0; forestNumber < 20; forestNumber++) {
+                // mostly short trees, so views run past the edge of a tile
+                byte[] heights = new byte[rows * cols];
+                for (int i = 0; i < heights.length; i++) {
+                    heights[i] = (byte) (random.nextInt(50) == 0 ? random.nextInt(10) : random.nextInt(3));
+                }
+                Day8.Forest forest = new Day8.Forest(heights, rows, cols);
+                assertEquals(bruteForceVisible(forest), Day8.countVisible(forest));
+                assertEquals(bruteForceScenicScore(forest), Day8.bestScenicScore(forest));
+            }
+        }
+    }
+
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    private static long bruteForceVisible(Day8.Forest forest) {
+        long visible = 0;
+        for (int r = 0; r < forest.rows(); r++) {
+            for (int c = 0; c < forest.cols(); c++) {
+                for (int[] direction : DIRECTIONS) {
+                    int rr = r + direction[0];
+                    int cc = c + direction[1];
+                    while (inside(forest, rr, cc) && forest.height(rr, cc) < forest.height(r, c)) {
+                        rr += direction[0];
+                        cc += direction[1];
+                    }
+                    if (!inside(forest, rr, cc)) {
+                        visible++;
+                        break;
+                    }
+                }
+            }
+        }
+        return visible;
+    }
+
+    private static long bruteForceScenicScore(Day8.Forest forest) {
+        long best = 0;
+        for (int r = 0; r < forest.rows(); r++) {
+            for (int c = 0; c < forest.cols(); c++) {
+                long score = 1;
+                for (int[] direction : DIRECTIONS) {
+                    long distance = 0;
+                    int rr = r + direction[0];
+                    int cc = c + direction[1];
+                    while (inside(forest, rr, cc)) {
+                        distance++;
+                        if (forest.height(rr, cc) >= forest.height(r, c)) {
+                            break;
+                        }
+                        rr += direction[0];
+                        cc += direction[1];
+                    }
+                    score *= distance;
+                }
+                best = Math.max(best, score);
+            }
+        }
+        return best;
+    }
+
+    private static boolean inside(Day8.Forest forest, int r, int c) {
+        return r >= 0 && r < forest.rows() && c >= 0 && c < forest.cols();
+    }
+}